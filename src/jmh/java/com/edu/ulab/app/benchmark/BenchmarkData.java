@@ -0,0 +1,82 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.AppApplication;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Общие данные и контекст приложения для бенчмарков.
+ */
+final class BenchmarkData {
+    /**
+     * Должность пользователя уникальна, поэтому к ней добавляется метка запуска и счётчик.
+     */
+    private static final String RUN_ID = Long.toString(System.currentTimeMillis(), 36);
+    private static final AtomicLong TITLE_SEQUENCE = new AtomicLong();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Бенчмарки собираются вместе с тестами, поэтому тестовые конфигурации (Testcontainers)
+     * исключаются из сканирования компонентов.
+     */
+    static ConfigurableApplicationContext startContext(String backend, String... properties) {
+        return new SpringApplicationBuilder(AppApplication.class)
+                .profiles("benchmark")
+                .properties("app.persistence.backend=" + backend)
+                .properties(properties)
+                .initializers(context -> context.getBeanFactory()
+                        .registerSingleton("testConfigurationExcludeFilter", new TestConfigurationExcludeFilter()))
+                .run();
+    }
+
+    static String uniqueTitle() {
+        return "bench-" + RUN_ID + "-" + TITLE_SEQUENCE.incrementAndGet();
+    }
+
+    static UserRequest userRequest() {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setFullName("Benchmark User");
+        userRequest.setTitle(uniqueTitle());
+        userRequest.setAge(33);
+        return userRequest;
+    }
+
+    static List<BookRequest> bookRequests(int count) {
+        List<BookRequest> bookRequests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BookRequest bookRequest = new BookRequest();
+            bookRequest.setTitle("Book " + i);
+            bookRequest.setAuthor("Author " + i);
+            bookRequest.setPageCount(100 + i);
+            bookRequests.add(bookRequest);
+        }
+        return bookRequests;
+    }
+
+    static UserBookRequest userBookRequest(int bookCount) {
+        UserBookRequest userBookRequest = new UserBookRequest();
+        userBookRequest.setUserRequest(userRequest());
+        userBookRequest.setBookRequests(bookRequests(bookCount));
+        return userBookRequest;
+    }
+
+    private static class TestConfigurationExcludeFilter extends TypeExcludeFilter {
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.edu.ulab.app.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение и удаление книг пользователя в обычной таблице и в таблице с хэш-секциями по person_id,
+ * как после миграции v2026101705. Таблицы со строками создаются в схеме bench_partition один раз
+ * и переиспользуются следующими запусками; удаление откатывается, данные не меняются.
+ * readBookById ищет книгу без person_id, как UPDATE сущности Hibernate, и обходит все секции.
+ * <p>
+ * Только PostgreSQL, адрес из -Dbenchmark.jdbc.url (по умолчанию локальный из application.yaml):
+ * mvn -Pbenchmark -DskipTests verify -Djmh.args="BookPartitioningBenchmark -p rows=10000000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookPartitioningBenchmark {
+    private static final int BOOKS_PER_USER = 100;
+    private static final int PARTITIONS = 16;
+
+    @Param({"heap", "hash"})
+    String layout;
+
+    @Param({"10000000"})
+    int rows;
+
+    private Connection connection;
+    private PreparedStatement readUserBooks;
+    private PreparedStatement deleteUserBooks;
+    private PreparedStatement readBookById;
+    private int users;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:15432/postgres"),
+                System.getProperty("benchmark.jdbc.username", "postgres"),
+                System.getProperty("benchmark.jdbc.password", "postgres"));
+        users = rows / BOOKS_PER_USER;
+        String table = "bench_partition.book_" + layout + "_" + rows;
+        createTable(table);
+
+        readUserBooks = connection.prepareStatement(
+                "SELECT id, title, author, page_count FROM " + table + " WHERE person_id = ? ORDER BY id");
+        deleteUserBooks = connection.prepareStatement("DELETE FROM " + table + " WHERE person_id = ?");
+        readBookById = connection.prepareStatement("SELECT id, title FROM " + table + " WHERE id = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void readUserBooks(Blackhole blackhole) throws SQLException {
+        readUserBooks.setInt(1, randomUser());
+        try (ResultSet rs = readUserBooks.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getInt(1));
+                blackhole.consume(rs.getString(2));
+            }
+        }
+    }
+
+    @Benchmark
+    public int deleteUserBooks() throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            deleteUserBooks.setInt(1, randomUser());
+            return deleteUserBooks.executeUpdate();
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @Benchmark
+    public void readBookById(Blackhole blackhole) throws SQLException {
+        readBookById.setInt(1, ThreadLocalRandom.current().nextInt(rows) + 1);
+        try (ResultSet rs = readBookById.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getString(2));
+            }
+        }
+    }
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(users) + 1;
+    }
+
+    /**
+     * Книга g принадлежит пользователю g % users + 1, книги одного пользователя разбросаны по таблице,
+     * как при создании пользователей вперемешку.
+     */
+    private void createTable(String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS bench_partition");
+            try (ResultSet rs = statement.executeQuery("SELECT to_regclass('" + table + "') IS NOT NULL")) {
+                rs.next();
+                if (rs.getBoolean(1)) {
+                    return;
+                }
+            }
+            String columns = "id integer not null, person_id integer not null, title varchar(50) not null, "
+                    + "author varchar(50) not null, page_count integer not null, version bigint not null default 0";
+            if (layout.equals("hash")) {
+                statement.execute("CREATE TABLE " + table + " (" + columns + ", primary key (id, person_id)) "
+                        + "PARTITION BY HASH (person_id)");
+                for (int remainder = 0; remainder < PARTITIONS; remainder++) {
+                    statement.execute("CREATE TABLE " + table + "_p" + remainder + " PARTITION OF " + table
+                            + " FOR VALUES WITH (MODULUS " + PARTITIONS + ", REMAINDER " + remainder + ")");
+                }
+            } else {
+                statement.execute("CREATE TABLE " + table + " (" + columns + ", primary key (id))");
+            }
+            statement.execute("INSERT INTO " + table + " (id, person_id, title, author, page_count) "
+                    + "SELECT g, g % " + users + " + 1, 'Book ' || g, 'Author ' || (g % 1000), 100 + g % 500 "
+                    + "FROM generate_series(1, " + rows + ") g");
+            statement.execute("CREATE INDEX ON " + table + " (person_id, id)");
+            statement.execute("ANALYZE " + table);
+        }
+    }
+}
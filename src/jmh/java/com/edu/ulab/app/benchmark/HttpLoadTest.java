@@ -0,0 +1,143 @@
+package com.edu.ulab.app.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный тест запущенного приложения: параллельные клиенты читают страницы книг пользователей
+ * (запрос всегда идёт в базу) и замеряют задержку. Результат - пропускная способность
+ * и перцентили в target/load-result-{label}.json, чтобы сравнивать режимы запуска приложения.
+ * <p>
+ * mvn -Pbenchmark -DskipTests test-compile exec:exec@load-test -Dload.args="--label=virtual --concurrency=500"
+ */
+public class HttpLoadTest {
+    private static final int USERS = 100;
+    private static final int BOOKS_PER_USER = 20;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final String baseUrl;
+
+    private HttpLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "url", "http://localhost:8091/app/api/v1/user",
+                "label", "platform",
+                "concurrency", "200",
+                "warmup", "10",
+                "duration", "30"));
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option[1]);
+        }
+
+        HttpLoadTest loadTest = new HttpLoadTest(options.get("url"));
+        List<Integer> userIds = loadTest.createUsers();
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        loadTest.run(userIds, concurrency, Integer.parseInt(options.get("warmup")));
+        Map<String, Object> result = loadTest.run(userIds, concurrency, Integer.parseInt(options.get("duration")));
+        result.put("label", options.get("label"));
+
+        File output = new File("target/load-result-" + options.get("label") + ".json");
+        loadTest.objectMapper.writeValue(output, result);
+        System.out.println(loadTest.objectMapper.writeValueAsString(result));
+    }
+
+    private List<Integer> createUsers() throws IOException, InterruptedException {
+        List<Integer> userIds = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            String body = objectMapper.writeValueAsString(BenchmarkData.userBookRequest(BOOKS_PER_USER));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/create"))
+                    .header("Content-Type", "application/json")
+                    .header("rqid", "load-test-" + i)
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            JsonNode created = objectMapper.readTree(response.body());
+            userIds.add(created.get("userId").asInt());
+        }
+        return userIds;
+    }
+
+    private Map<String, Object> run(List<Integer> userIds, int concurrency, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            long[] clientLatencies = new long[1 << 16];
+            latencies.add(clientLatencies);
+            clients.execute(() -> {
+                int count = 0;
+                while (System.nanoTime() < deadline && count < clientLatencies.length - 1) {
+                    Integer userId = userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/get/" + userId + "/books?limit=50"))
+                            .timeout(Duration.ofSeconds(30))
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    clientLatencies[++count] = System.nanoTime() - start;
+                }
+                clientLatencies[0] = count;
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        long[] all = latencies.stream()
+                .flatMapToLong(clientLatencies -> Arrays.stream(clientLatencies, 1, (int) clientLatencies[0] + 1))
+                .sorted()
+                .toArray();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("concurrency", concurrency);
+        result.put("durationSeconds", seconds);
+        result.put("requests", all.length);
+        result.put("errors", errors.get());
+        result.put("throughputPerSecond", all.length / (double) seconds);
+        result.put("p50Millis", percentile(all, 0.50));
+        result.put("p99Millis", percentile(all, 0.99));
+        result.put("maxMillis", all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+        return result;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1] / 1e6;
+    }
+}
@@ -0,0 +1,72 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.mapper.BookJdbcMapper;
+import com.edu.ulab.app.mapper.PersonJdbcMapper;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор строк {@link BookJdbcMapper} и {@link PersonJdbcMapper}.
+ * Строки отдаются из памяти ({@link SimpleResultSet}), поэтому замер не включает работу драйвера и базы.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JdbcRowMapperBenchmark {
+    @Param({"1", "100", "1000"})
+    int rowCount;
+
+    private final RowMapperResultSetExtractor<Book> bookExtractor =
+            new RowMapperResultSetExtractor<>(new BookJdbcMapper());
+    private final RowMapperResultSetExtractor<Person> personExtractor =
+            new RowMapperResultSetExtractor<>(new PersonJdbcMapper());
+
+    private SimpleResultSet bookRows;
+    private SimpleResultSet personRows;
+
+    @Setup
+    public void setUp() {
+        bookRows = new SimpleResultSet();
+        bookRows.setAutoClose(false);
+        bookRows.addColumn("ID", Types.INTEGER, 10, 0);
+        bookRows.addColumn("TITLE", Types.VARCHAR, 255, 0);
+        bookRows.addColumn("AUTHOR", Types.VARCHAR, 255, 0);
+        bookRows.addColumn("PAGE_COUNT", Types.INTEGER, 10, 0);
+        bookRows.addColumn("USER_ID", Types.INTEGER, 10, 0);
+
+        personRows = new SimpleResultSet();
+        personRows.setAutoClose(false);
+        personRows.addColumn("ID", Types.INTEGER, 10, 0);
+        personRows.addColumn("FULL_NAME", Types.VARCHAR, 255, 0);
+        personRows.addColumn("TITLE", Types.VARCHAR, 255, 0);
+        personRows.addColumn("AGE", Types.INTEGER, 10, 0);
+
+        for (int i = 0; i < rowCount; i++) {
+            bookRows.addRow(i, "Book " + i, "Author " + i, 100 + i, 1);
+            personRows.addRow(i, "Benchmark User " + i, "title-" + i, 33);
+        }
+    }
+
+    @Benchmark
+    public List<Book> mapBooks() throws SQLException {
+        bookRows.beforeFirst();
+        return bookExtractor.extractData(bookRows);
+    }
+
+    @Benchmark
+    public List<Person> mapPersons() throws SQLException {
+        personRows.beforeFirst();
+        return personExtractor.extractData(personRows);
+    }
+}
@@ -0,0 +1,120 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.config.LockingConfig;
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конкурирующие обновления одного пользователя в режимах app.persistence.locking.mode:
+ * все потоки меняют пользователя и одну из его книг. Отклонённые после всех повторов операции -
+ * вспомогательный счётчик rejected, общее число конфликтов версий печатается после прогона.
+ * <p>
+ * Транзакции встроенной H2 почти не пересекаются во времени, поэтому сравнение имеет смысл на Postgres:
+ * mvn -Pbenchmark -DskipTests verify -Djmh.args="LockingContentionBenchmark -t 16
+ * -jvmArgsAppend -Dspring.profiles.active=benchmark-postgres"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LockingContentionBenchmark {
+    @Param({"pessimistic", "optimistic"})
+    String locking;
+
+    @Param({"1", "10"})
+    int booksPerUser;
+
+    private ConfigurableApplicationContext context;
+    private UserDataFacade userDataFacade;
+    private UserRequest userRequest;
+    private List<BookRequest> bookRequests;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startContext("jpa", "app.persistence.locking.mode=" + locking);
+        userDataFacade = context.getBean(UserDataFacade.class);
+
+        UserBookRequest createRequest = BenchmarkData.userBookRequest(booksPerUser);
+        UserBookResponse created = userDataFacade.createUserWithBooks(createRequest);
+        userRequest = createRequest.getUserRequest();
+        userRequest.setId(created.getUserId());
+        bookRequests = createRequest.getBookRequests();
+        for (int i = 0; i < bookRequests.size(); i++) {
+            bookRequests.get(i).setId(created.getBooksIdList().get(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        double conflicts = context.getBean(MeterRegistry.class)
+                .find(LockingConfig.CONFLICT_METRIC)
+                .counters()
+                .stream()
+                .mapToDouble(Counter::count)
+                .sum();
+        System.out.printf("%n%s locking, %d books: %.0f version conflicts%n", locking, booksPerUser, conflicts);
+        userDataFacade.deleteUserWithBooks(userRequest.getId());
+        context.close();
+    }
+
+    @Benchmark
+    public UserBookResponse updateUserWithBooks(Outcome outcome) {
+        try {
+            return userDataFacade.updateUserWithBooks(updateRequest());
+        } catch (OptimisticLockingFailureException e) {
+            outcome.rejected++;
+            return null;
+        }
+    }
+
+    /**
+     * Каждый вызов меняет возраст пользователя и число страниц случайной книги, чтобы обе строки попали в UPDATE.
+     */
+    private UserBookRequest updateRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UserRequest user = new UserRequest();
+        user.setId(userRequest.getId());
+        user.setFullName(userRequest.getFullName());
+        user.setTitle(userRequest.getTitle());
+        user.setAge(random.nextInt(18, 100));
+
+        List<BookRequest> books = new ArrayList<>(bookRequests.size());
+        int changedBook = random.nextInt(bookRequests.size());
+        for (int i = 0; i < bookRequests.size(); i++) {
+            BookRequest source = bookRequests.get(i);
+            BookRequest book = new BookRequest();
+            book.setId(source.getId());
+            book.setTitle(source.getTitle());
+            book.setAuthor(source.getAuthor());
+            book.setPageCount(i == changedBook ? random.nextInt(1, 10_000) : source.getPageCount());
+            books.add(book);
+        }
+
+        UserBookRequest request = new UserBookRequest();
+        request.setUserRequest(user);
+        request.setBookRequests(books);
+        return request;
+    }
+}
@@ -0,0 +1,74 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования MapStruct-мапперов {@link BookMapper} и {@link UserMapper}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmark {
+    @Param({"1", "50"})
+    int bookCount;
+
+    private final BookMapper bookMapper = Mappers.getMapper(BookMapper.class);
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    private UserRequest userRequest;
+    private Person person;
+    private List<BookRequest> bookRequests;
+    private List<BookDto> bookDtos;
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        userRequest = BenchmarkData.userRequest();
+        person = userMapper.userDtoToPerson(userMapper.userRequestToUserDto(userRequest));
+        person.setId(1);
+        bookRequests = BenchmarkData.bookRequests(bookCount);
+        bookDtos = bookMapper.bookRequestToBookDto(bookRequests);
+        bookDtos.forEach(bookDto -> bookDto.setUserId(person.getId()));
+        books = bookDtos.stream().map(bookMapper::bookDtoToBook).toList();
+    }
+
+    @Benchmark
+    public UserDto userRequestToUserDto() {
+        return userMapper.userRequestToUserDto(userRequest);
+    }
+
+    @Benchmark
+    public UserDto personToUserDto() {
+        return userMapper.personToUserDto(person);
+    }
+
+    @Benchmark
+    public List<BookDto> bookRequestsToBookDtos() {
+        return bookMapper.bookRequestToBookDto(bookRequests);
+    }
+
+    @Benchmark
+    public List<Book> bookDtosToBooks() {
+        return bookDtos.stream().map(bookMapper::bookDtoToBook).toList();
+    }
+
+    @Benchmark
+    public List<BookDto> booksToBookDtos() {
+        return bookMapper.booksToBookDtos(books);
+    }
+}
@@ -0,0 +1,150 @@
+package com.edu.ulab.app.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Настройки драйвера по умолчанию против профиля performance. Выражения открываются заново
+ * на каждый вызов, как в JdbcTemplate: без серверного кэша каждое выполнение - Parse/Bind/Execute,
+ * с prepareThreshold и кэшем выражений на соединении после второго вызова остаются Bind/Execute.
+ * insertBatch со reWriteBatchedInserts уходит многострочными INSERT вместо отдельного INSERT на строку.
+ * selectByIds с padded=true дополняет IN (...) до степени двойки, как InClauseParameters.
+ * <p>
+ * Только PostgreSQL, адрес из -Dbenchmark.jdbc.url (по умолчанию локальный из application.yaml):
+ * mvn -Pbenchmark -DskipTests verify -Djmh.args="PreparedStatementBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreparedStatementBenchmark {
+    private static final String TABLE = "bench_statement.book";
+    private static final int USERS = 10_000;
+    private static final int BOOKS_PER_USER = 10;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"default", "performance"})
+    String settings;
+
+    @Param({"false", "true"})
+    boolean padded;
+
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:15432/postgres"));
+        dataSource.setUsername(System.getProperty("benchmark.jdbc.username", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "postgres"));
+        dataSource.setMaximumPoolSize(1);
+        if (settings.equals("performance")) {
+            dataSource.addDataSourceProperty("prepareThreshold", 2);
+            dataSource.addDataSourceProperty("preparedStatementCacheQueries", 512);
+            dataSource.addDataSourceProperty("preparedStatementCacheSizeMiB", 10);
+            dataSource.addDataSourceProperty("reWriteBatchedInserts", true);
+        } else {
+            dataSource.addDataSourceProperty("prepareThreshold", 0);
+        }
+        createTable();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void selectUserBooks(Blackhole blackhole) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT id, title, author, page_count FROM " + TABLE + " WHERE person_id = ?")) {
+            statement.setInt(1, randomUser());
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    blackhole.consume(rs.getInt(1));
+                    blackhole.consume(rs.getString(2));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int insertBatch() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO " + TABLE + " (person_id, title, author, page_count) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    statement.setInt(1, randomUser());
+                    statement.setString(2, "Book " + i);
+                    statement.setString(3, "Author " + i);
+                    statement.setInt(4, 100 + i);
+                    statement.addBatch();
+                }
+                return statement.executeBatch().length;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Число пользователей от 1 до 32: без дополнения у запроса 32 варианта текста, с дополнением - 6.
+     */
+    @Benchmark
+    public void selectByIds(Blackhole blackhole) throws SQLException {
+        int count = ThreadLocalRandom.current().nextInt(32) + 1;
+        int parameters = padded && count > 1 ? Integer.highestOneBit(count - 1) << 1 : count;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT id FROM " + TABLE
+                     + " WHERE person_id IN (" + String.join(",", Collections.nCopies(parameters, "?")) + ")")) {
+            int first = randomUser();
+            for (int i = 0; i < parameters; i++) {
+                statement.setInt(i + 1, first + Math.min(i, count - 1));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    blackhole.consume(rs.getInt(1));
+                }
+            }
+        }
+    }
+
+    private static int randomUser() {
+        return ThreadLocalRandom.current().nextInt(USERS - 32) + 1;
+    }
+
+    private void createTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS bench_statement");
+            try (ResultSet rs = statement.executeQuery("SELECT to_regclass('" + TABLE + "') IS NOT NULL")) {
+                rs.next();
+                if (rs.getBoolean(1)) {
+                    return;
+                }
+            }
+            statement.execute("CREATE TABLE " + TABLE + " (id serial primary key, person_id integer not null, "
+                    + "title varchar(50) not null, author varchar(50) not null, page_count integer not null)");
+            statement.execute("INSERT INTO " + TABLE + " (person_id, title, author, page_count) "
+                    + "SELECT g % " + USERS + " + 1, 'Book ' || g, 'Author ' || (g % 1000), 100 + g % 500 "
+                    + "FROM generate_series(1, " + USERS * BOOKS_PER_USER + ") g");
+            statement.execute("CREATE INDEX ON " + TABLE + " (person_id)");
+            statement.execute("ANALYZE " + TABLE);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение реализаций {@link UserService} и {@link BookService} для app.persistence.backend.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+    @Param({"jpa", "jdbc", "memory"})
+    String backend;
+
+    @Param({"1", "10", "50"})
+    int booksPerUser;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private BookService bookService;
+    private UserMapper userMapper;
+    private BookMapper bookMapper;
+    private Integer userId;
+    private final Queue<Integer> createdUserIds = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startContext(backend);
+        userService = context.getBean(UserService.class);
+        bookService = context.getBean(BookService.class);
+        userMapper = context.getBean(UserMapper.class);
+        bookMapper = context.getBean(BookMapper.class);
+        userId = createUserWithBooks();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteCreatedUsers() {
+        Integer createdUserId;
+        while ((createdUserId = createdUserIds.poll()) != null) {
+            bookService.deleteAllByUserId(createdUserId);
+            userService.deleteUserById(createdUserId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer createUserAndBooks() {
+        Integer createdUserId = createUserWithBooks();
+        createdUserIds.add(createdUserId);
+        return createdUserId;
+    }
+
+    @Benchmark
+    public UserWithBooksDto getUserWithBooksById() {
+        return userService.getUserWithBooksById(userId);
+    }
+
+    @Benchmark
+    public List<BookDto> findBooksByUserId() {
+        return bookService.findByUserId(userId);
+    }
+
+    @Benchmark
+    public List<Integer> findBookIdsByUserId() {
+        return bookService.findIdsByUserId(userId);
+    }
+
+    private Integer createUserWithBooks() {
+        UserDto userDto = userService.createUser(userMapper.userRequestToUserDto(BenchmarkData.userRequest()));
+        List<BookDto> bookDtos = BenchmarkData.bookRequests(booksPerUser)
+                .stream()
+                .map(bookMapper::bookRequestToBookDto)
+                .peek(bookDto -> bookDto.setUserId(userDto.getId()))
+                .toList();
+        bookService.createBooks(bookDtos);
+        return userDto.getId();
+    }
+}
@@ -0,0 +1,107 @@
+package com.edu.ulab.app.benchmark;
+
+import com.edu.ulab.app.config.CacheConfig;
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции {@link UserDataFacade} для каждого значения app.persistence.backend.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDataFacadeBenchmark {
+    @Param({"jpa", "jdbc", "memory"})
+    String backend;
+
+    @Param({"1", "10", "50"})
+    int booksPerUser;
+
+    private ConfigurableApplicationContext context;
+    private UserDataFacade userDataFacade;
+    private Cache userBooksCache;
+    private Integer userId;
+    private UserBookRequest updateRequest;
+    private final Queue<Integer> createdUserIds = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startContext(backend);
+        userDataFacade = context.getBean(UserDataFacade.class);
+        userBooksCache = Objects.requireNonNull(
+                context.getBean(CacheManager.class).getCache(CacheConfig.USER_BOOKS_CACHE));
+
+        updateRequest = BenchmarkData.userBookRequest(booksPerUser);
+        UserBookResponse created = userDataFacade.createUserWithBooks(updateRequest);
+        userId = created.getUserId();
+        updateRequest.getUserRequest().setId(userId);
+        List<BookRequest> bookRequests = updateRequest.getBookRequests();
+        for (int i = 0; i < bookRequests.size(); i++) {
+            bookRequests.get(i).setId(created.getBooksIdList().get(i));
+        }
+    }
+
+    /**
+     * Созданные за итерацию пользователи удаляются вне замера, чтобы база не росла между итерациями.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteCreatedUsers() {
+        Integer createdUserId;
+        while ((createdUserId = createdUserIds.poll()) != null) {
+            userDataFacade.deleteUserWithBooks(createdUserId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserBookResponse createUserWithBooks() {
+        UserBookResponse created = userDataFacade.createUserWithBooks(BenchmarkData.userBookRequest(booksPerUser));
+        createdUserIds.add(created.getUserId());
+        return created;
+    }
+
+    /**
+     * Ответ сбрасывается из кэша userBooks перед вызовом, чтобы измерять чтение через сервисы.
+     */
+    @Benchmark
+    public UserBookResponse getUserWithBooks() {
+        userBooksCache.evict(userId);
+        return userDataFacade.getUserWithBooks(userId);
+    }
+
+    @Benchmark
+    public UserBookResponse getUserWithBooksCached() {
+        return userDataFacade.getUserWithBooks(userId);
+    }
+
+    @Benchmark
+    public UserBookResponse updateUserWithBooks() {
+        return userDataFacade.updateUserWithBooks(updateRequest);
+    }
+
+    @Benchmark
+    public Integer createAndDeleteUserWithBooks() {
+        UserBookResponse created = userDataFacade.createUserWithBooks(BenchmarkData.userBookRequest(booksPerUser));
+        userDataFacade.deleteUserWithBooks(created.getUserId());
+        return created.getUserId();
+    }
+}
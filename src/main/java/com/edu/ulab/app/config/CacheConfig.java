@@ -0,0 +1,55 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.service.RequestCoalescer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties({CacheProperties.class, CoalescingProperties.class})
+public class CacheConfig {
+    public static final String USER_BOOKS_CACHE = "userBooks";
+
+    /**
+     * Caffeine-кэш с размером и TTL из spring.cache.caffeine.spec.
+     * Очистка кэша внутри транзакции выполняется только после её коммита,
+     * одновременные промахи ключа выполняют одну загрузку, а загрузка, начатая до очистки,
+     * в кэш не попадает ({@link EvictionAwareCache}).
+     */
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties, RequestCoalescer requestCoalescer) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new EvictionAwareCache(super.adaptCaffeineCache(name, cache), requestCoalescer);
+            }
+        };
+        caffeineCacheManager.setAllowNullValues(false);
+        String specification = cacheProperties.getCaffeine().getSpec();
+        if (StringUtils.hasText(specification)) {
+            caffeineCacheManager.setCacheSpecification(specification);
+        }
+        caffeineCacheManager.setCacheNames(cacheProperties.getCacheNames());
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+
+    /**
+     * Метрики cache.* для {@link EvictionAwareCache}: стандартный провайдер Spring Boot
+     * привязывается только к CaffeineCache, поэтому метрики снимаются с обёрнутого кэша Caffeine.
+     */
+    @Bean
+    public CacheMeterBinderProvider<EvictionAwareCache> evictionAwareCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(
+                (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache(), cache.getName(), tags);
+    }
+}
@@ -0,0 +1,19 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Объединение одновременных чтений одного ключа при промахе кэша.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.coalescing")
+public class CoalescingProperties {
+    private boolean enabled = true;
+    /**
+     * Сколько ожидающий запрос ждёт чужую загрузку, после чего загружает сам.
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,54 @@
+package com.edu.ulab.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ConnectionPoolProperties.class)
+public class ConnectionPoolConfig {
+
+    /**
+     * Размер задаётся до первого соединения, когда пул ещё не запущен и настройки можно менять.
+     */
+    @Bean
+    public static BeanPostProcessor connectionPoolSizePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    applyPoolSize(dataSource, environment);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Пул фиксированного размера: minimum-idle, если не задан, равен размеру пула.
+     * Явные настройки ищутся через Binder, чтобы учесть все формы имени, например
+     * SPRING_DATASOURCE_HIKARI_MAXIMUMPOOLSIZE или spring.datasource.hikari.maximumPoolSize.
+     */
+    static void applyPoolSize(HikariDataSource dataSource, Environment environment) {
+        Binder binder = Binder.get(environment);
+        ConnectionPoolProperties properties = binder
+                .bind("app.datasource.pool", ConnectionPoolProperties.class)
+                .orElseGet(ConnectionPoolProperties::new);
+        if (!properties.isSizeFromCores()
+                || binder.bind("spring.datasource.hikari.maximum-pool-size", Integer.class).isBound()) {
+            return;
+        }
+        int poolSize = properties.maximumPoolSize();
+        dataSource.setMaximumPoolSize(poolSize);
+        if (!binder.bind("spring.datasource.hikari.minimum-idle", Integer.class).isBound()) {
+            dataSource.setMinimumIdle(poolSize);
+        }
+        log.info("Connection pool for {} sized to {} connections", dataSource.getJdbcUrl(), poolSize);
+    }
+}
@@ -0,0 +1,29 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Размер пула Hikari по числу ядер сервера базы: ядра * 2 + число дисков.
+ * Применяется, только если spring.datasource.hikari.maximum-pool-size не задан явно
+ * ни в одной форме имени (в том числе переменной окружения).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.pool")
+public class ConnectionPoolProperties {
+    private boolean sizeFromCores;
+    /**
+     * Ядра сервера базы, обязательны при size-from-cores: ядра машины приложения к размеру пула не относятся.
+     */
+    private int databaseCores;
+    private int effectiveSpindleCount = 1;
+
+    public int maximumPoolSize() {
+        if (databaseCores <= 0) {
+            throw new IllegalStateException(
+                    "app.datasource.pool.database-cores must be set to the database server core count "
+                            + "when app.datasource.pool.size-from-cores is true");
+        }
+        return databaseCores * 2 + effectiveSpindleCount;
+    }
+}
@@ -0,0 +1,49 @@
+package com.edu.ulab.app.config;
+
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Обёртка DataSource на datasource-proxy для наблюдения за SQL выражениями всех реализаций - JPA и JdbcTemplate.
+ * Если включён app.metrics.db-statements.enabled, выражения считаются в текущем потоке
+ * (счётчики читает {@link com.edu.ulab.app.web.filter.DbStatementMetricsFilter} в конце запроса).
+ * Бины {@link QueryExecutionListener} получают каждое выполнение. Если не нужно ни то, ни другое,
+ * DataSource не оборачивается.
+ */
+@Configuration
+public class DataSourceProxyConfig {
+    public static final String COUNTED_DATA_SOURCE = "ulab";
+
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(Environment environment,
+                                                                 ObjectProvider<QueryExecutionListener> listeners) {
+        boolean countStatements = environment.getProperty("app.metrics.db-statements.enabled", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                List<QueryExecutionListener> executionListeners = listeners.orderedStream().toList();
+                if (!countStatements && executionListeners.isEmpty()) {
+                    return bean;
+                }
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                        .name(COUNTED_DATA_SOURCE);
+                if (countStatements) {
+                    builder.countQuery();
+                }
+                executionListeners.forEach(builder::listener);
+                return builder.build();
+            }
+        };
+    }
+}
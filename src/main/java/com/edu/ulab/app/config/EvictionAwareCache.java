@@ -0,0 +1,161 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.service.RequestCoalescer;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Кэш, в который не попадает результат загрузки, начатой до очистки ключа.
+ * <p>
+ * Очистка после коммита записи увеличивает поколение ключа. Загрузка запоминает поколение
+ * до чтения и кладёт результат, только если поколение не изменилось: иначе она могла прочитать
+ * данные до коммита, и они остались бы в кэше до истечения TTL. Проверка поколения с записью
+ * и очистка с увеличением поколения выполняются в compute по ключу и друг друга не пересекают.
+ * <p>
+ * Одновременные промахи одного ключа выполняют одну загрузку через {@link RequestCoalescer}.
+ * Очистка сначала отцепляет выполняющуюся загрузку ключа, поэтому вызовы после коммита
+ * не присоединяются к чтению, начатому до него, а загружают заново.
+ * <p>
+ * Загрузка читает основную базу ({@link ReplicaRouter#readFromPrimary}): реплика, ещё не получившая
+ * запись, вернула бы после очистки старые данные с новым поколением.
+ * <p>
+ * Поколения хранятся {@link #GENERATION_TTL} после последнего обращения: загрузка дольше этого
+ * времени могла бы положить устаревший результат.
+ */
+public class EvictionAwareCache implements Cache {
+    static final Duration GENERATION_TTL = Duration.ofMinutes(10);
+
+    private final Cache target;
+    private final RequestCoalescer requestCoalescer;
+    private final Map<Object, Long> generations = Caffeine.newBuilder()
+            .expireAfterAccess(GENERATION_TTL)
+            .<Object, Long>build()
+            .asMap();
+    /**
+     * Запись результата загрузки - под чтением, {@link #clear()} - под записью.
+     */
+    private final ReadWriteLock clearLock = new ReentrantReadWriteLock();
+    private volatile long epoch;
+
+    public EvictionAwareCache(Cache target, RequestCoalescer requestCoalescer) {
+        this.target = target;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    /**
+     * Используется {@code @Cacheable(sync = true)}: при промахе значение загружается один раз
+     * на ключ среди одновременных вызовов и кладётся в кэш, если ключ не очищали с начала загрузки.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = target.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        return requestCoalescer.execute(getName(), key, () -> load(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        requestCoalescer.detach(getName(), key);
+        generations.compute(key, (k, generation) -> {
+            target.evict(key);
+            return nextGeneration(generation);
+        });
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        requestCoalescer.detach(getName(), key);
+        AtomicBoolean present = new AtomicBoolean();
+        generations.compute(key, (k, generation) -> {
+            present.set(target.evictIfPresent(key));
+            return nextGeneration(generation);
+        });
+        return present.get();
+    }
+
+    @Override
+    public void clear() {
+        clearLock.writeLock().lock();
+        try {
+            epoch++;
+            target.clear();
+        } finally {
+            clearLock.writeLock().unlock();
+        }
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader) {
+        long startEpoch = epoch;
+        Long startGeneration = generations.get(key);
+        T value;
+        try {
+            value = ReplicaRouter.readFromPrimary(valueLoader);
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        putIfNotEvicted(key, value, startEpoch, startGeneration);
+        return value;
+    }
+
+    private void putIfNotEvicted(Object key, Object value, long startEpoch, Long startGeneration) {
+        clearLock.readLock().lock();
+        try {
+            if (epoch != startEpoch) {
+                return;
+            }
+            generations.compute(key, (k, generation) -> {
+                if (Objects.equals(generation, startGeneration)) {
+                    target.put(key, value);
+                }
+                return generation;
+            });
+        } finally {
+            clearLock.readLock().unlock();
+        }
+    }
+
+    private static Long nextGeneration(Long generation) {
+        return generation == null ? 1L : generation + 1;
+    }
+}
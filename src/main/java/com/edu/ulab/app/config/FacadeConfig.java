@@ -0,0 +1,9 @@
+package com.edu.ulab.app.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({MultiGetProperties.class, ImportProperties.class})
+public class FacadeConfig {
+}
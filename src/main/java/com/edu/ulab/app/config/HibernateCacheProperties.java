@@ -0,0 +1,28 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки кэша второго уровня Hibernate.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.hibernate")
+public class HibernateCacheProperties {
+    private boolean enabled;
+    private boolean queryCache;
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Data
+    public static class Region {
+        private long maxSize = 1000;
+        /**
+         * Время жизни записи. Если не задано, записи вытесняются только по размеру.
+         */
+        private Duration ttl;
+    }
+}
@@ -0,0 +1,38 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.repository.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Instant;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+
+    /**
+     * Периодически удаляет из таблицы ключи старше app.idempotency.ttl.
+     */
+    @Configuration
+    @EnableScheduling
+    @ConditionalOnProperty(name = "app.idempotency.table.enabled", havingValue = "true")
+    @RequiredArgsConstructor
+    static class IdempotencyTableConfig implements SchedulingConfigurer {
+        private final IdempotencyKeyRepository keyRepository;
+        private final IdempotencyProperties properties;
+
+        @Override
+        public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+            long intervalMillis = properties.getTable().getCleanupInterval().toMillis();
+            taskRegistrar.addFixedDelayTask(new IntervalTask(
+                    () -> keyRepository.deleteCreatedBefore(Instant.now().minus(properties.getTtl())),
+                    intervalMillis, intervalMillis));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Дедупликация повторных запросов создания по заголовку rqid.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.idempotency")
+public class IdempotencyProperties {
+    private boolean enabled = true;
+    /**
+     * Число ответов в памяти, при превышении вытесняются давно не использованные.
+     */
+    private long maxSize = 100_000;
+    /**
+     * Сколько хранится ответ: повтор запроса позже выполняется как новый.
+     */
+    private Duration ttl = Duration.ofHours(24);
+    /**
+     * Сколько повтор ждёт ещё выполняющийся исходный запрос, после чего получает 409 с Retry-After.
+     */
+    private Duration inFlightTimeout = Duration.ofSeconds(10);
+    private Table table = new Table();
+
+    /**
+     * Второй уровень в таблице ulab_edu.idempotency_key: общий для экземпляров приложения
+     * и переживает перезапуск. Требует базу, с app.persistence.backend=memory не работает.
+     */
+    @Data
+    public static class Table {
+        private boolean enabled;
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,30 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Потоковый импорт пользователей из NDJSON. Проверяется при связывании.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.import")
+public class ImportProperties implements Validator {
+    /**
+     * Сколько записей сохраняется в одной транзакции.
+     */
+    private int chunkSize = 500;
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return ImportProperties.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        if (((ImportProperties) target).getChunkSize() <= 0) {
+            errors.rejectValue("chunkSize", "positive", "must be greater than 0");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.edu.ulab.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.retry.annotation.RetryConfiguration;
+import org.springframework.retry.listener.RetryListenerSupport;
+
+/**
+ * Повтор операций фасадов при конфликте версий.
+ */
+@Slf4j
+@Configuration
+@EnableRetry
+@EnableConfigurationProperties(LockingProperties.class)
+public class LockingConfig {
+    /**
+     * Совет повтора должен стоять снаружи транзакции, чтобы каждая попытка шла в новой транзакции
+     * с заново прочитанными данными. Без явного порядка он делит LOWEST_PRECEDENCE с советом транзакций.
+     */
+    public static final int RETRY_ADVISOR_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+    public static final String CONFLICT_METRIC = "app.persistence.locking.conflicts";
+
+    /**
+     * Считает неудачные попытки: каждая - конфликт версий, после которого операция повторяется или отклоняется.
+     */
+    @Bean
+    public RetryListener lockingConflictListener(MeterRegistry meterRegistry) {
+        return new RetryListenerSupport() {
+            @Override
+            public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                         Throwable throwable) {
+                log.debug("Attempt {} failed: {}", context.getRetryCount(), throwable.getMessage());
+                meterRegistry.counter(CONFLICT_METRIC, "exception", throwable.getClass().getSimpleName()).increment();
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor retryAdvisorOrderPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RetryConfiguration retryConfiguration) {
+                    retryConfiguration.setOrder(RETRY_ADVISOR_ORDER);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Режим блокировки строк при обновлении пользователя и книг в реализации JPA.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.persistence.locking")
+public class LockingProperties {
+    private Mode mode = Mode.PESSIMISTIC;
+    /**
+     * Число попыток операции при конфликте версий, включая первую.
+     */
+    private int maxAttempts = 3;
+    /**
+     * Начальная пауза перед повтором, дальше удваивается со случайным разбросом.
+     */
+    private long backoffMillis = 20;
+
+    public boolean isOptimistic() {
+        return mode == Mode.OPTIMISTIC;
+    }
+
+    public enum Mode {
+        /**
+         * SELECT ... FOR UPDATE: конкурирующие обновления ждут друг друга.
+         */
+        PESSIMISTIC,
+        /**
+         * Чтение без блокировки и проверка @Version при записи: проигравшая транзакция повторяется.
+         */
+        OPTIMISTIC
+    }
+}
@@ -0,0 +1,42 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * Пакетное чтение пользователей GET/POST /user/get/batch.
+ * Проверяется при связывании: приложение не стартует с неположительными размерами
+ * или пачкой больше max-size.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.multi-get")
+public class MultiGetProperties implements Validator {
+    /**
+     * Наибольшее число пользователей в одном запросе.
+     */
+    private int maxSize = 1000;
+    /**
+     * Размер пачки идентификаторов для одного IN (...).
+     */
+    private int chunkSize = 500;
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return MultiGetProperties.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        MultiGetProperties properties = (MultiGetProperties) target;
+        if (properties.getMaxSize() <= 0) {
+            errors.rejectValue("maxSize", "positive", "must be greater than 0");
+        }
+        if (properties.getChunkSize() <= 0) {
+            errors.rejectValue("chunkSize", "positive", "must be greater than 0");
+        } else if (properties.getChunkSize() > properties.getMaxSize()) {
+            errors.rejectValue("chunkSize", "max", "must not be greater than max-size");
+        }
+    }
+}
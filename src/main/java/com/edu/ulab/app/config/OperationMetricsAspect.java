@@ -0,0 +1,76 @@
+package com.edu.ulab.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Таймер app.operation на каждый публичный метод фасадов и сервисов с тегами layer, class, method
+ * и exception. Тег backend добавляется общим тегом management.metrics.tags.
+ * Аспект внешний по отношению к транзакции и кэшу, поэтому время включает коммит и попадания в кэш.
+ * Для Mono/Flux время считается от подписки до завершения потока.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class OperationMetricsAspect {
+    public static final String OPERATION_METRIC = "app.operation";
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.edu.ulab.app.facade..*(..))")
+    public Object timeFacade(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "facade");
+    }
+
+    @Around("execution(public * com.edu.ulab.app.service..*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "service");
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            stop(sample, joinPoint, layer, e);
+            throw e;
+        }
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                Timer.Sample subscribed = Timer.start(meterRegistry);
+                return mono.doOnSuccess(value -> stop(subscribed, joinPoint, layer, null))
+                        .doOnError(e -> stop(subscribed, joinPoint, layer, e));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                Timer.Sample subscribed = Timer.start(meterRegistry);
+                return flux.doOnComplete(() -> stop(subscribed, joinPoint, layer, null))
+                        .doOnError(e -> stop(subscribed, joinPoint, layer, e));
+            });
+        }
+        stop(sample, joinPoint, layer, null);
+        return result;
+    }
+
+    private void stop(Timer.Sample sample, ProceedingJoinPoint joinPoint, String layer, Throwable exception) {
+        sample.stop(Timer.builder(OPERATION_METRIC)
+                .tag("layer", layer)
+                .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception == null ? NONE : exception.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+}
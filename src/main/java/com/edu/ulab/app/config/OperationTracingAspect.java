@@ -0,0 +1,116 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.dto.UserDto;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Дочерний спан на каждый публичный метод фасадов и сервисов. Аргументы метода записываются
+ * атрибутами app.arg.*: числа - значением, DTO - идентификатором, коллекции - размером.
+ * Книги в updateUserWithBooks обновляются одним пакетом, поэтому спана на отдельную книгу нет:
+ * в трассе виден спан updateBooks с числом книг и под ним спаны SQL ({@link SqlTracingListener}).
+ * Для Mono/Flux спан открывается при подписке и закрывается по завершении потока.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class OperationTracingAspect {
+    private final Tracer tracer;
+
+    @Around("execution(public * com.edu.ulab.app.facade..*(..))")
+    public Object traceFacade(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "facade");
+    }
+
+    @Around("execution(public * com.edu.ulab.app.service..*(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "service");
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        if (Mono.class.isAssignableFrom(returnType) || Flux.class.isAssignableFrom(returnType)) {
+            return traceReactive(joinPoint, layer);
+        }
+        Span span = startSpan(joinPoint, layer, Context.current());
+        try (Scope scope = span.makeCurrent()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            fail(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private Object traceReactive(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        Context parent = Context.current();
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                Span span = startSpan(joinPoint, layer, parent);
+                return mono.doOnError(e -> fail(span, e))
+                        .doFinally(signal -> span.end());
+            });
+        }
+        Flux<?> flux = (Flux<?>) result;
+        return Flux.defer(() -> {
+            Span span = startSpan(joinPoint, layer, parent);
+            return flux.doOnError(e -> fail(span, e))
+                    .doFinally(signal -> span.end());
+        });
+    }
+
+    private Span startSpan(ProceedingJoinPoint joinPoint, String layer, Context parent) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        SpanBuilder spanBuilder = tracer.spanBuilder(signature.getDeclaringType().getSimpleName() + "." + signature.getName())
+                .setParent(parent)
+                .setAttribute("app.layer", layer);
+        String[] parameterNames = signature.getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < args.length; i++) {
+            String name = parameterNames == null ? "arg" + i : parameterNames[i];
+            setArgument(spanBuilder, "app.arg." + name, args[i]);
+        }
+        return spanBuilder.startSpan();
+    }
+
+    private static void setArgument(SpanBuilder spanBuilder, String key, Object arg) {
+        if (arg instanceof Number number) {
+            spanBuilder.setAttribute(key, number.longValue());
+        } else if (arg instanceof Enum<?> value) {
+            spanBuilder.setAttribute(key, value.name());
+        } else if (arg instanceof BookDto book && book.getId() != null) {
+            spanBuilder.setAttribute(key + ".id", book.getId());
+        } else if (arg instanceof UserDto user && user.getId() != null) {
+            spanBuilder.setAttribute(key + ".id", user.getId());
+        } else if (arg instanceof Collection<?> collection) {
+            spanBuilder.setAttribute(key + ".size", collection.size());
+        }
+    }
+
+    private static void fail(Span span, Throwable e) {
+        span.recordException(e);
+        span.setStatus(StatusCode.ERROR, e.getClass().getSimpleName());
+    }
+}
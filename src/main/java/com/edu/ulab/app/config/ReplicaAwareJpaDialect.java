@@ -0,0 +1,47 @@
+package com.edu.ulab.app.config;
+
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+
+/**
+ * Транзакции readOnly вне {@link ReplicaRouter#readFromPrimary} читают реплику, которая может
+ * ещё не содержать последнюю запись. Прочитанное в них попало бы в кэш второго уровня Hibernate
+ * уже после очистки по этой записи и осталось бы там до вытеснения, поэтому EntityManager таких
+ * транзакций берёт данные из кэша, но не пополняет его ({@link CacheStoreMode#BYPASS}, в Hibernate -
+ * CacheMode.GET). Кэш пополняют только чтения основной базы. Режим восстанавливается после транзакции:
+ * при open-in-view тот же EntityManager служит и следующим транзакциям запроса.
+ */
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+    static final String STORE_MODE = "javax.persistence.cache.storeMode";
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly() || ReplicaRouter.isReadingFromPrimary()) {
+            return transactionData;
+        }
+        Object previousStoreMode = entityManager.getProperties().getOrDefault(STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReplicaTransactionData(transactionData, entityManager, previousStoreMode);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReplicaTransactionData replicaTransactionData) {
+            replicaTransactionData.entityManager().setProperty(STORE_MODE, replicaTransactionData.previousStoreMode());
+            super.cleanupTransaction(replicaTransactionData.transactionData());
+            return;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private record ReplicaTransactionData(Object transactionData, EntityManager entityManager,
+                                          Object previousStoreMode) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реплики для чтения в транзакциях readOnly. Настройки пула берутся из spring.datasource.hikari,
+ * у реплики переопределяются адрес, учётные данные и размер пула.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.replicas")
+public class ReplicaProperties {
+    private boolean enabled;
+    private Selection selection = Selection.ROUND_ROBIN;
+    /**
+     * Реплика с большей задержкой не используется, пока не догонит основную базу.
+     */
+    private Duration maxLag = Duration.ofSeconds(10);
+    private Duration lagCheckInterval = Duration.ofSeconds(5);
+    /**
+     * Задержка реплики в секундах; NULL считается нулевой задержкой.
+     * По умолчанию для PostgreSQL: реплика, применившая всё полученное, не отстаёт.
+     */
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+    private List<Instance> instances = new ArrayList<>();
+
+    public enum Selection {
+        ROUND_ROBIN,
+        /**
+         * Реплика с наименьшим числом выданных соединений пула.
+         */
+        LEAST_CONNECTIONS
+    }
+
+    @Data
+    public static class Instance {
+        private String url;
+        /**
+         * Если не заданы, используются учётные данные spring.datasource.
+         */
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,193 @@
+package com.edu.ulab.app.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пулы основной базы и реплик и выбор пула для очередного соединения.
+ * Транзакции readOnly идут на доступную реплику, всё остальное - на основную базу.
+ * Доступность реплик обновляет {@link #refreshLag()}: реплика с ошибкой или задержкой больше
+ * app.datasource.replicas.max-lag исключается, без доступных реплик чтение идёт на основную базу.
+ * <p>
+ * Сразу после записи реплика может ещё не содержать её. Прочитанное с реплики после очистки кэша
+ * осталось бы в кэше до истечения его TTL, поэтому загрузки в кэш выполняются внутри
+ * {@link #readFromPrimary} и читают основную базу даже в транзакции readOnly, а транзакции,
+ * читающие реплику, не пополняют кэш второго уровня Hibernate ({@link ReplicaAwareJpaDialect}).
+ */
+@Slf4j
+public class ReplicaRouter implements AutoCloseable {
+    public static final String PRIMARY = "primary";
+    public static final String ROUTED_METRIC = "app.datasource.routed";
+    public static final String LAG_METRIC = "app.datasource.replica.lag";
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = ThreadLocal.withInitial(() -> false);
+
+    private final HikariDataSource primary;
+    private final Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+    private final ReplicaProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Double> lagSeconds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile List<String> availableReplicas = List.of();
+
+    /**
+     * Пулы реплик копируют настройки ещё не запущенного пула основной базы.
+     */
+    public ReplicaRouter(HikariDataSource primary, ReplicaProperties properties, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        if (primary.getPoolName() == null) {
+            primary.setPoolName(PRIMARY);
+        }
+        primary.setMetricRegistry(meterRegistry);
+
+        List<ReplicaProperties.Instance> instances = properties.getInstances();
+        for (int i = 0; i < instances.size(); i++) {
+            String name = "replica-" + i;
+            replicas.put(name, createReplica(name, instances.get(i)));
+            Gauge.builder(LAG_METRIC, lagSeconds, lags -> lags.getOrDefault(name, Double.NaN))
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    public Map<Object, Object> targetDataSources() {
+        Map<Object, Object> targets = new LinkedHashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        return targets;
+    }
+
+    public DataSource primary() {
+        return primary;
+    }
+
+    /**
+     * Выполняет загрузку с чтением из основной базы. Действует на соединения, полученные внутри загрузки:
+     * соединение уже начатой транзакции readOnly остаётся на реплике.
+     */
+    public static <T> T readFromPrimary(Callable<T> loader) throws Exception {
+        boolean previous = PRIMARY_READS.get();
+        PRIMARY_READS.set(true);
+        try {
+            return loader.call();
+        } finally {
+            PRIMARY_READS.set(previous);
+        }
+    }
+
+    /**
+     * Выполняется ли текущий поток внутри {@link #readFromPrimary}.
+     */
+    static boolean isReadingFromPrimary() {
+        return PRIMARY_READS.get();
+    }
+
+    /**
+     * Ключ пула для соединения текущего потока.
+     */
+    public String route() {
+        boolean replicaRead = TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PRIMARY_READS.get();
+        String route = replicaRead ? selectReplica() : PRIMARY;
+        meterRegistry.counter(ROUTED_METRIC, "route", route).increment();
+        return route;
+    }
+
+    public void refreshLag() {
+        List<String> available = new ArrayList<>();
+        replicas.forEach((name, replica) -> {
+            Double lag = queryLag(name, replica);
+            boolean wasAvailable = availableReplicas.contains(name);
+            if (lag == null) {
+                lagSeconds.remove(name);
+            } else {
+                lagSeconds.put(name, lag);
+            }
+            if (lag != null && lag <= properties.getMaxLag().toMillis() / 1000.0) {
+                available.add(name);
+                if (!wasAvailable) {
+                    log.info("Replica {} is available, lag {}s", name, lag);
+                }
+            } else if (wasAvailable) {
+                log.warn("Replica {} is excluded from reads, lag {}s", name, lag);
+            }
+        });
+        availableReplicas = List.copyOf(available);
+    }
+
+    @Override
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    private String selectReplica() {
+        List<String> available = availableReplicas;
+        if (available.isEmpty()) {
+            return PRIMARY;
+        }
+        if (properties.getSelection() == ReplicaProperties.Selection.LEAST_CONNECTIONS) {
+            return available.stream()
+                    .min(Comparator.comparingInt(this::activeConnections))
+                    .orElse(PRIMARY);
+        }
+        return available.get(Math.floorMod(nextReplica.getAndIncrement(), available.size()));
+    }
+
+    private int activeConnections(String name) {
+        HikariPoolMXBean pool = replicas.get(name).getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+
+    /**
+     * Задержка в секундах или null, если реплика недоступна.
+     */
+    private Double queryLag(String name, HikariDataSource replica) {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+            jdbcTemplate.setQueryTimeout((int) Math.max(1, properties.getLagCheckInterval().toSeconds()));
+            Double lag = jdbcTemplate.queryForObject(properties.getLagQuery(), Double.class);
+            return lag == null ? 0 : lag;
+        } catch (RuntimeException e) {
+            log.debug("Failed to check lag of replica {}", name, e);
+            return null;
+        }
+    }
+
+    private HikariDataSource createReplica(String name, ReplicaProperties.Instance instance) {
+        HikariConfig config = new HikariConfig();
+        primary.copyStateTo(config);
+        config.setPoolName(name);
+        config.setJdbcUrl(instance.getUrl());
+        if (instance.getUsername() != null) {
+            config.setUsername(instance.getUsername());
+            config.setPassword(instance.getPassword());
+        }
+        config.setMaximumPoolSize(instance.getMaximumPoolSize());
+        if (config.getMinimumIdle() > instance.getMaximumPoolSize()) {
+            config.setMinimumIdle(instance.getMaximumPoolSize());
+        }
+        config.setReadOnly(true);
+        // недоступная при старте реплика не мешает запуску и исключается проверкой задержки
+        config.setInitializationFailTimeout(-1);
+        config.setMetricRegistry(meterRegistry);
+        return new HikariDataSource(config);
+    }
+}
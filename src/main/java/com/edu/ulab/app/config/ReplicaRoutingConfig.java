@@ -0,0 +1,91 @@
+package com.edu.ulab.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import javax.sql.DataSource;
+
+/**
+ * Заменяет DataSource из spring.datasource маршрутизацией между основной базой и репликами.
+ * Единственный бин DataSource - {@link LazyConnectionDataSourceProxy}: менеджер транзакций берёт
+ * соединение в начале транзакции, ещё до того, как она помечена readOnly, а реальное соединение
+ * выбирается при первом запросе. Этот бин оборачивает {@link DataSourceProxyConfig}, поэтому
+ * выражения на репликах считаются вместе с остальными. Пулы - не бины, их метрики
+ * hikaricp.* с тегом pool регистрирует {@link ReplicaRouter}.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRouter replicaRouter(ReplicaProperties properties,
+                                       DataSourceProperties dataSourceProperties,
+                                       Environment environment,
+                                       MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        ConnectionPoolConfig.applyPoolSize(primary, environment);
+        ReplicaRouter router = new ReplicaRouter(primary, properties, meterRegistry);
+        router.refreshLag();
+        return router;
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaRouter));
+    }
+
+    /**
+     * Диалект, не пополняющий кэш второго уровня из транзакций, читающих реплику. Задаётся фабрике
+     * EntityManagerFactory до её инициализации: JpaTransactionManager берёт диалект у фабрики.
+     */
+    @Bean
+    public static BeanPostProcessor replicaAwareJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean entityManagerFactoryBean) {
+                    entityManagerFactoryBean.setJpaDialect(new ReplicaAwareJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Периодически проверяет задержку реплик.
+     */
+    @Configuration
+    @EnableScheduling
+    @ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+    @RequiredArgsConstructor
+    static class ReplicaLagCheckConfig implements SchedulingConfigurer {
+        private final ReplicaRouter replicaRouter;
+        private final ReplicaProperties properties;
+
+        @Override
+        public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+            long intervalMillis = properties.getLagCheckInterval().toMillis();
+            taskRegistrar.addFixedDelayTask(new IntervalTask(replicaRouter::refreshLag, intervalMillis, intervalMillis));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.edu.ulab.app.config;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import lombok.RequiredArgsConstructor;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Спан на каждое выполнение SQL выражения (или пакета) внутри трассируемой операции.
+ * Выражения вне трассы, например миграции при старте, не трассируются.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SqlTracingListener implements QueryExecutionListener {
+    private static final String SPAN_KEY = SqlTracingListener.class.getName();
+
+    private final Tracer tracer;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (!Span.current().getSpanContext().isValid() || queryInfoList.isEmpty()) {
+            return;
+        }
+        String sql = queryInfoList.get(0).getQuery();
+        Span span = tracer.spanBuilder(operation(sql))
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute("db.statement", sql)
+                .setAttribute("db.batch_size", execInfo.isBatch() ? execInfo.getBatchSize() : 1)
+                .startSpan();
+        execInfo.addCustomValue(SPAN_KEY, span);
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Span span = execInfo.getCustomValue(SPAN_KEY, Span.class);
+        if (span == null) {
+            return;
+        }
+        if (!execInfo.isSuccess() && execInfo.getThrowable() != null) {
+            span.recordException(execInfo.getThrowable());
+            span.setStatus(StatusCode.ERROR);
+        }
+        span.end();
+    }
+
+    private static String operation(String sql) {
+        String statement = sql.stripLeading();
+        int end = 0;
+        while (end < statement.length() && Character.isLetter(statement.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? "SQL" : statement.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+}
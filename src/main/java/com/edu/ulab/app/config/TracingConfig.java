@@ -0,0 +1,54 @@
+package com.edu.ulab.app.config;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Трассировка запросов на OpenTelemetry SDK: спан запроса ({@link com.edu.ulab.app.web.filter.TracingFilter}),
+ * дочерние спаны фасадов и сервисов ({@link OperationTracingAspect}) и SQL выражений ({@link SqlTracingListener}).
+ * Спаны отправляются пакетами в фоновом потоке в файл или OTLP коллектор.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true")
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfig {
+    public static final String INSTRUMENTATION_NAME = "com.edu.ulab.app";
+
+    @Bean(destroyMethod = "close")
+    public SdkTracerProvider sdkTracerProvider(TracingProperties properties) throws IOException {
+        SpanExporter exporter = switch (properties.getExporter()) {
+            case FILE -> new JsonFileSpanExporter(Path.of(properties.getFile()));
+            case OTLP -> OtlpHttpSpanExporter.builder()
+                    .setEndpoint(properties.getOtlpEndpoint())
+                    .build();
+        };
+        log.info("Tracing enabled, exporter {}, sample ratio {}", properties.getExporter(), properties.getSampleRatio());
+        return SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(
+                        Attributes.of(AttributeKey.stringKey("service.name"), properties.getServiceName()))))
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(properties.getSampleRatio())))
+                .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+                .build();
+    }
+
+    @Bean
+    public Tracer tracer(SdkTracerProvider sdkTracerProvider) {
+        return sdkTracerProvider.get(INSTRUMENTATION_NAME);
+    }
+}
@@ -0,0 +1,31 @@
+package com.edu.ulab.app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки трассировки запросов OpenTelemetry.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.tracing")
+public class TracingProperties {
+    private boolean enabled;
+    private String serviceName = "ulab-app";
+    private Exporter exporter = Exporter.FILE;
+    /**
+     * Файл для {@link Exporter#FILE}: по одному завершённому спану в строке JSON.
+     */
+    private String file = "spans.jsonl";
+    /**
+     * Адрес OTLP/HTTP коллектора для {@link Exporter#OTLP}.
+     */
+    private String otlpEndpoint = "http://localhost:4318/v1/traces";
+    /**
+     * Доля трассируемых запросов, если вызывающая сторона не передала решение в traceparent.
+     */
+    private double sampleRatio = 1.0;
+
+    public enum Exporter {
+        FILE, OTLP
+    }
+}
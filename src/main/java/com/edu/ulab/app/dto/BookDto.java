@@ -1,8 +1,12 @@
 package com.edu.ulab.app.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class BookDto {
     private Integer id;
     private Integer userId;
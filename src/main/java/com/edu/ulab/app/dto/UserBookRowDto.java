@@ -0,0 +1,22 @@
+package com.edu.ulab.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Строка соединения пользователя с книгой. Поля книги пусты, если у пользователя нет книг.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBookRowDto {
+    private Integer userId;
+    private String fullName;
+    private String title;
+    private Integer age;
+    private Integer bookId;
+    private String bookTitle;
+    private String author;
+    private Integer pageCount;
+}
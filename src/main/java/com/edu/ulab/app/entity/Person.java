@@ -2,6 +2,8 @@ package com.edu.ulab.app.entity;
 
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Set;
@@ -11,6 +13,8 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person")
 @Table(name = "person", schema = "ulab_edu")
 public class Person {
     @Id
@@ -27,9 +31,17 @@ public class Person {
     @Column(nullable = false)
     private int age;
 
+    /**
+     * Проверяется в UPDATE и DELETE, при app.persistence.locking.mode=optimistic заменяет блокировку строки.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
 //    @Column(nullable = false)
 //    private int count;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person-books")
     @OneToMany(mappedBy = "person", cascade = {
             CascadeType.MERGE,
             CascadeType.PERSIST,
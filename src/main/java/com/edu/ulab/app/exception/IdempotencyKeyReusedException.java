@@ -0,0 +1,10 @@
+package com.edu.ulab.app.exception;
+
+/**
+ * Ключ rqid уже использован запросом с другим методом, путём или телом.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.edu.ulab.app.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Запрос с тем же ключом rqid ещё выполняется; повтор стоит отправить позже.
+ */
+@Getter
+public class RequestInProgressException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public RequestInProgressException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,256 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.CacheConfig;
+import com.edu.ulab.app.config.LockingConfig;
+import com.edu.ulab.app.config.LockingProperties;
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.repository.ReactiveBookRepository;
+import com.edu.ulab.app.repository.ReactiveBookRepository.VersionedBook;
+import com.edu.ulab.app.repository.ReactiveSequenceIdGenerator;
+import com.edu.ulab.app.repository.ReactiveUserRepository;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.BookResponse;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Неблокирующий вариант {@link UserDataFacade} на R2DBC с той же семантикой операций.
+ * Данные общие с блокирующим API, поэтому после записи сбрасываются кэш ответов userBooks
+ * и кэш второго уровня Hibernate, о которых R2DBC ничего не знает.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveUserDataFacade {
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveBookRepository bookRepository;
+    private final ReactiveSequenceIdGenerator idGenerator;
+    private final TransactionalOperator transactionalOperator;
+    private final UserMapper userMapper;
+    private final BookMapper bookMapper;
+    private final Cache userBooksCache;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    private final LockingProperties lockingProperties;
+
+    public ReactiveUserDataFacade(ReactiveUserRepository userRepository,
+                                  ReactiveBookRepository bookRepository,
+                                  ReactiveSequenceIdGenerator idGenerator,
+                                  TransactionalOperator reactiveTransactionalOperator,
+                                  UserMapper userMapper,
+                                  BookMapper bookMapper,
+                                  CacheManager cacheManager,
+                                  ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                  MeterRegistry meterRegistry,
+                                  LockingProperties lockingProperties) {
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.idGenerator = idGenerator;
+        this.transactionalOperator = reactiveTransactionalOperator;
+        this.userMapper = userMapper;
+        this.bookMapper = bookMapper;
+        this.userBooksCache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.USER_BOOKS_CACHE));
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry;
+        this.lockingProperties = lockingProperties;
+    }
+
+    public Mono<UserBookResponse> createUserWithBooks(UserBookRequest userBookRequest) {
+        log.debug("Got reactive user book create request: {}", userBookRequest);
+        UserDto userDto = userMapper.userRequestToUserDto(userBookRequest.getUserRequest());
+        List<BookDto> bookDtoList = mapBooks(userBookRequest.getBookRequests());
+
+        return idGenerator.nextIds(1 + bookDtoList.size())
+                .flatMap(ids -> {
+                    userDto.setId(ids.get(0));
+                    for (int i = 0; i < bookDtoList.size(); i++) {
+                        bookDtoList.get(i).setId(ids.get(i + 1));
+                        bookDtoList.get(i).setUserId(userDto.getId());
+                    }
+                    return userRepository.insert(userDto)
+                            .then(bookRepository.insertAll(bookDtoList));
+                })
+                .map(books -> UserBookResponse.builder()
+                        .userId(userDto.getId())
+                        .booksIdList(books.stream().map(BookDto::getId).toList())
+                        .build())
+                .as(transactionalOperator::transactional)
+                .doOnNext(response -> {
+                    log.info("Created user {} with {} books", response.getUserId(), response.getBooksIdList().size());
+                    recordBooksPerRequest("create", response.getBooksIdList().size());
+                });
+    }
+
+    /**
+     * Ответ берётся из общего с {@link UserDataFacade} кэша userBooks, при промахе - из базы
+     * через {@link Cache#get(Object, java.util.concurrent.Callable)}: как и у {@code @Cacheable(sync = true)},
+     * результат чтения, начатого до очистки ключа, в кэш не попадает, а одновременные промахи читают базу один раз.
+     * Загрузка ждёт R2DBC на boundedElastic, попадание в кэш потоки не блокирует.
+     */
+    public Mono<UserBookResponse> getUserWithBooks(Integer userId) {
+        return Mono.justOrEmpty(userBooksCache.get(userId, UserBookResponse.class))
+                .switchIfEmpty(Mono.fromCallable(() -> userBooksCache.get(userId, () -> loadUserWithBooks(userId).block()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorMap(Cache.ValueRetrievalException.class, Throwable::getCause));
+    }
+
+    /**
+     * Книги пользователя потоком с учётом обратного давления подписчика.
+     */
+    public Flux<BookResponse> getUserBooks(Integer userId) {
+        return bookRepository.findByPersonId(userId)
+                .map(bookMapper::bookDtoToBookResponse);
+    }
+
+    public Mono<UserBookResponse> updateUserWithBooks(UserBookRequest userBookRequest) {
+        log.debug("Got reactive user book update request: {}", userBookRequest);
+        UserDto userDto = userMapper.userRequestToUserDto(userBookRequest.getUserRequest());
+        Integer userId = userDto.getId();
+        List<BookDto> bookDtoList = mapBooks(userBookRequest.getBookRequests());
+        List<BookDto> newBooks = new ArrayList<>();
+        List<BookDto> existingBooks = new ArrayList<>();
+        bookDtoList.forEach(book -> {
+            book.setUserId(userId);
+            (book.getId() == null ? newBooks : existingBooks).add(book);
+        });
+
+        return userRepository.update(userDto)
+                .filter(updated -> updated > 0)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No user with id: " + userId)))
+                .thenMany(bookRepository.findVersionedByPersonId(userId))
+                .collectMap(versionedBook -> versionedBook.book().getId())
+                .flatMap(currentBooks -> updateChangedBooks(existingBooks, currentBooks))
+                .then(Mono.defer(() -> idGenerator.nextIds(newBooks.size())))
+                .flatMap(ids -> {
+                    for (int i = 0; i < newBooks.size(); i++) {
+                        newBooks.get(i).setId(ids.get(i));
+                    }
+                    return bookRepository.insertAll(newBooks);
+                })
+                .thenMany(bookRepository.findIdsByPersonId(userId))
+                .collectList()
+                .map(bookIdList -> UserBookResponse.builder()
+                        .userId(userId)
+                        .booksIdList(bookIdList)
+                        .build())
+                .as(transactionalOperator::transactional)
+                .doOnError(OptimisticLockingFailureException.class, e -> meterRegistry
+                        .counter(LockingConfig.CONFLICT_METRIC, "exception", e.getClass().getSimpleName())
+                        .increment())
+                .retryWhen(conflictRetry())
+                .doOnNext(response -> {
+                    evictCaches(userId, response.getBooksIdList());
+                    recordBooksPerRequest("update", bookDtoList.size());
+                });
+    }
+
+    public Mono<Void> deleteUserWithBooks(Integer userId) {
+        log.debug("Got reactive user and book delete request: {}", userId);
+        return bookRepository.findIdsByPersonId(userId)
+                .collectList()
+                .flatMap(bookIdList -> bookRepository.deleteAllByPersonId(userId)
+                        .then(userRepository.deleteById(userId))
+                        .filter(deleted -> deleted > 0)
+                        .switchIfEmpty(Mono.error(() -> new NotFoundException("No user with id: " + userId)))
+                        .thenReturn(bookIdList))
+                .as(transactionalOperator::transactional)
+                .doOnNext(bookIdList -> evictCaches(userId, bookIdList))
+                .then();
+    }
+
+    private Mono<UserBookResponse> loadUserWithBooks(Integer userId) {
+        return userRepository.findWithBookIdsById(userId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No user with id: " + userId)))
+                .map(userWithBooks -> UserBookResponse.builder()
+                        .userId(userWithBooks.getUser().getId())
+                        .booksIdList(userWithBooks.getBookIdList())
+                        .build());
+    }
+
+    /**
+     * Изменённые книги обновляются одним пакетом с проверкой версий, прочитанных в этой же транзакции,
+     * как в {@link com.edu.ulab.app.service.BookService#updateBooks}. Книги без изменений не пишутся.
+     */
+    private Mono<Void> updateChangedBooks(List<BookDto> existingBooks, Map<Integer, VersionedBook> currentBooks) {
+        List<VersionedBook> changedBooks = new ArrayList<>();
+        for (BookDto book : existingBooks) {
+            VersionedBook currentBook = currentBooks.get(book.getId());
+            if (currentBook == null) {
+                return Mono.error(new NotFoundException("No book with id: " + book.getId()));
+            }
+            if (!book.equals(currentBook.book())) {
+                changedBooks.add(new VersionedBook(book, currentBook.version()));
+            }
+        }
+        return bookRepository.updateAll(changedBooks)
+                .flatMap(updateCounts -> {
+                    for (int i = 0; i < updateCounts.size(); i++) {
+                        if (updateCounts.get(i) == 0) {
+                            return Mono.error(new OptimisticLockingFailureException(
+                                    "Book with id " + changedBooks.get(i).book().getId() + " was updated concurrently"));
+                        }
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Повтор всей транзакции при конфликте версий с теми же настройками, что у {@code @Retryable} в {@link UserDataFacade}.
+     */
+    private Retry conflictRetry() {
+        return Retry.backoff(lockingProperties.getMaxAttempts() - 1L, Duration.ofMillis(lockingProperties.getBackoffMillis()))
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .onRetryExhaustedThrow((retrySpec, signal) -> signal.failure());
+    }
+
+    private List<BookDto> mapBooks(List<BookRequest> bookRequests) {
+        return Objects.requireNonNullElse(bookRequests, List.<BookRequest>of())
+                .stream()
+                .filter(Objects::nonNull)
+                .map(bookMapper::bookRequestToBookDto)
+                .toList();
+    }
+
+    private void recordBooksPerRequest(String operation, int books) {
+        meterRegistry.summary(UserDataFacade.BOOKS_PER_REQUEST_METRIC, "operation", operation).record(books);
+    }
+
+    private void evictCaches(Integer userId, List<Integer> bookIdList) {
+        userBooksCache.evict(userId);
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        if (factory == null) {
+            return;
+        }
+        org.hibernate.Cache hibernateCache = factory.getCache().unwrap(org.hibernate.Cache.class);
+        hibernateCache.evictEntityData(Person.class, userId);
+        hibernateCache.evictCollectionData(Person.class.getName() + ".bookSet", userId);
+        bookIdList.forEach(bookId -> hibernateCache.evictEntityData(Book.class, bookId));
+        hibernateCache.evictDefaultQueryRegion();
+    }
+}
@@ -0,0 +1,69 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.MultiGetProperties;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.exception.BadRequestException;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетное чтение пользователей с идентификаторами книг вместо отдельного запроса на каждого пользователя.
+ * Идентификаторы обрабатываются пачками по app.multi-get.chunk-size: на пачку один запрос пользователей
+ * по id IN (...) и один запрос книг по person_id IN (...).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserBatchFacade {
+    private final UserService userService;
+    private final BookService bookService;
+    private final MultiGetProperties properties;
+
+    /**
+     * Ответы в порядке запрошенных идентификаторов, повторы схлопываются, отсутствующих пользователей в ответе нет.
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, UserBookResponse> getUsersWithBooks(List<Integer> userIds) {
+        List<Integer> distinctIds = userIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        int maxSize = properties.getMaxSize();
+        int chunkSize = properties.getChunkSize();
+        if (distinctIds.size() > maxSize) {
+            throw new BadRequestException("Too many user ids: " + distinctIds.size() + ", at most " + maxSize);
+        }
+
+        Map<Integer, UserBookResponse> responses = new LinkedHashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Integer> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            Map<Integer, UserDto> users = userService.getUsersByIds(chunk)
+                    .stream()
+                    .collect(Collectors.toMap(UserDto::getId, Function.identity()));
+            if (users.isEmpty()) {
+                continue;
+            }
+            Map<Integer, List<Integer>> bookIdsByUser = bookService.findIdsByUserIds(users.keySet());
+            chunk.stream()
+                    .filter(users::containsKey)
+                    .forEach(userId -> responses.put(userId, UserBookResponse.builder()
+                            .userId(userId)
+                            .booksIdList(bookIdsByUser.getOrDefault(userId, List.of()))
+                            .build()));
+        }
+        log.info("Got {} of {} requested users with books", responses.size(), distinctIds.size());
+        return responses;
+    }
+}
@@ -1,51 +1,73 @@
 package com.edu.ulab.app.facade;
 
+import com.edu.ulab.app.config.CacheConfig;
 import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
 import com.edu.ulab.app.mapper.BookMapper;
 import com.edu.ulab.app.mapper.UserMapper;
 
-import com.edu.ulab.app.service.impl.BookServiceImpl;
-import com.edu.ulab.app.service.impl.BookServiceImplTemplate;
-import com.edu.ulab.app.service.impl.UserServiceImpl;
-import com.edu.ulab.app.service.impl.UserServiceImplTemplate;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.web.request.BookRequest;
 import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.BookPageResponse;
 import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class UserDataFacade {
-    private final UserServiceImpl userService;
-    private final BookServiceImpl bookService;
+    public static final String BOOKS_PER_REQUEST_METRIC = "app.request.books";
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final UserService userService;
+    private final BookService bookService;
     private final UserMapper userMapper;
     private final BookMapper bookMapper;
+    private final MeterRegistry meterRegistry;
 
+    @Transactional
     public UserBookResponse createUserWithBooks(UserBookRequest userBookRequest) {
-        log.info("Got user book create request: {}", userBookRequest);
+        log.debug("Got user book create request: {}", userBookRequest);
         UserDto userDto = userMapper.userRequestToUserDto(userBookRequest.getUserRequest());
-        log.info("Mapped user request: {}", userDto);
+        userDto.setId(null);
 
         UserDto createdUser = userService.createUser(userDto);
-        log.info("Created user: {}", createdUser);
+        log.debug("Created user: {}", createdUser);
 
-        List<Integer> bookIdList = userBookRequest.getBookRequests()
+        List<BookDto> bookDtoList = userBookRequest.getBookRequests()
                 .stream()
                 .filter(Objects::nonNull)
                 .map(bookMapper::bookRequestToBookDto)
-                .peek(bookDto -> bookDto.setUserId(createdUser.getId()))
-                .peek(mappedBookDto -> log.info("mapped book: {}", mappedBookDto))
-                .map(bookService::createBook)
-                .peek(createdBook -> log.info("Created book: {}", createdBook))
+                .peek(bookDto -> {
+                    bookDto.setId(null);
+                    bookDto.setUserId(createdUser.getId());
+                })
+                .toList();
+
+        List<Integer> bookIdList = bookService.createBooks(bookDtoList)
+                .stream()
                 .map(BookDto::getId)
                 .toList();
-        log.info("Collected book ids: {}", bookIdList);
+        log.info("Created user {} with {} books", createdUser.getId(), bookIdList.size());
+        recordBooksPerRequest("create", bookIdList.size());
 
         return UserBookResponse.builder()
                 .userId(createdUser.getId())
@@ -53,40 +75,71 @@ public class UserDataFacade {
                 .build();
     }
 
+    /**
+     * Создание пачки пользователей с книгами в одной транзакции:
+     * пользователи и книги сохраняются пакетно, а не по одному.
+     */
+    @Transactional
+    public List<UserBookResponse> createUsersWithBooks(List<UserBookRequest> userBookRequests) {
+        log.debug("Got users with books create request: {} users", userBookRequests.size());
+        List<UserDto> userDtoList = userBookRequests.stream()
+                .map(UserBookRequest::getUserRequest)
+                .map(userMapper::userRequestToUserDto)
+                .peek(userDto -> userDto.setId(null))
+                .toList();
+        List<UserDto> createdUsers = userService.createUsers(userDtoList);
+
+        Map<Integer, List<Integer>> bookIdsByUser = new LinkedHashMap<>();
+        List<BookDto> bookDtoList = new ArrayList<>();
+        for (int i = 0; i < createdUsers.size(); i++) {
+            Integer userId = createdUsers.get(i).getId();
+            bookIdsByUser.put(userId, new ArrayList<>());
+            Objects.requireNonNullElse(userBookRequests.get(i).getBookRequests(), List.<BookRequest>of())
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .map(bookMapper::bookRequestToBookDto)
+                    .forEach(bookDto -> {
+                        bookDto.setId(null);
+                        bookDto.setUserId(userId);
+                        bookDtoList.add(bookDto);
+                    });
+        }
+        bookService.createBooks(bookDtoList)
+                .forEach(book -> bookIdsByUser.get(book.getUserId()).add(book.getId()));
+        log.info("Created {} users with {} books", createdUsers.size(), bookDtoList.size());
+        bookIdsByUser.values().forEach(bookIds -> recordBooksPerRequest("create_batch", bookIds.size()));
+
+        return bookIdsByUser.entrySet()
+                .stream()
+                .map(entry -> UserBookResponse.builder()
+                        .userId(entry.getKey())
+                        .booksIdList(entry.getValue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Пользователь обновляется под блокировкой его строки, книги - одним сравнением с текущими
+     * книгами пользователя в {@link BookService#updateBooks}, без чтения каждой книги перед записью.
+     * При конфликте версий в оптимистичном режиме операция повторяется в новой транзакции.
+     */
+    @Retryable(value = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${app.persistence.locking.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${app.persistence.locking.backoff-millis:20}",
+                    multiplier = 2, random = true))
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_BOOKS_CACHE, key = "#userBookRequest.userRequest.id")
     public UserBookResponse updateUserWithBooks(UserBookRequest userBookRequest) {
-        log.info("Got user book update request: {}", userBookRequest);
+        log.debug("Got user book update request: {}", userBookRequest);
 
         UserDto userDto = userMapper.userRequestToUserDto(userBookRequest.getUserRequest());
-        log.info("Mapped user request: {}", userDto);
-
-        getUserWithBooks(userDto.getId());
-        log.info("The user is in the database: {}", userDto);
-
         UserDto updateUser = userService.updateUser(userDto);
-        log.info("Update user: {}", updateUser);
+        log.debug("Update user: {}", updateUser);
 
         List<BookDto> bookDtoList = bookMapper.bookRequestToBookDto(userBookRequest.getBookRequests());
-        log.info("Mapped book request: {}", bookDtoList);
-
-        bookDtoList.forEach(book -> {
-            if (book.getId() == null) {
-                book.setUserId(userDto.getId());
-                log.info("Book set userId: {}", book);
-
-                bookService.createBook(book);
-                log.info("Book create in database: {}", book);
-            } else {
-                log.info("Check book in database: {}", book.getId());
-                bookService.getBookById(book.getId());
-
-                bookService.updateBook(book);
-                log.info("Book update: {}", book);
-            }
-        });
-        log.info("Update book: {}", bookDtoList);
-
-        List<Integer> bookIdList = getAllBooksUser(userDto.getId());
-        log.info("Collected update book ids: {}", bookIdList);
+        List<Integer> bookIdList = bookService.updateBooks(updateUser.getId(), bookDtoList);
+        log.info("Updated user {} with {} books", updateUser.getId(), bookDtoList.size());
+        recordBooksPerRequest("update", bookDtoList.size());
 
         return UserBookResponse.builder()
                 .userId(updateUser.getId())
@@ -94,45 +147,50 @@ public class UserDataFacade {
                 .build();
     }
 
+    /**
+     * При промахе кэша одновременные запросы одного пользователя выполняют одну загрузку из базы.
+     * Загрузка, начатая до очистки кэша записью, в кэш не кладётся.
+     */
+    @Cacheable(cacheNames = CacheConfig.USER_BOOKS_CACHE, key = "#userId", sync = true)
     public UserBookResponse getUserWithBooks(Integer userId) {
-        log.info("Got user book get request: {}", userId);
-
-        UserDto userDto = userService.getUserById(userId);
-        log.info("Got a user: {}", userDto);
-
-        List<Integer> bookIdList = getAllBooksUser(userId);
-        log.info("Collected book ids: {}", bookIdList);
+        UserWithBooksDto userWithBooks = userService.getUserWithBooksById(userId);
+        log.debug("Got a user with books: {}", userWithBooks);
 
         return UserBookResponse.builder()
-                .userId(userDto.getId())
-                .booksIdList(bookIdList)
+                .userId(userWithBooks.getUser().getId())
+                .booksIdList(userWithBooks.getBookIdList())
                 .build();
     }
 
-    public void deleteUserWithBooks(Integer userId) {
-        log.info("Got user and book delete request: {}", userId);
+    @Transactional(readOnly = true)
+    public BookPageResponse getUserBooksPage(Integer userId, Integer afterId, int limit) {
+        log.debug("Got user books page request: {}, after: {}, limit: {}", userId, afterId, limit);
 
-        getUserWithBooks(userId);
-        log.info("The user is in the database: {}", userId);
+        userService.getUserById(userId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<BookDto> books = bookService.findByUserId(userId, afterId, pageSize);
+        log.debug("Collected {} books", books.size());
 
-        userService.deleteUserById(userId);
-        log.info("Deleted user");
+        return BookPageResponse.builder()
+                .userId(userId)
+                .books(bookMapper.bookDtosToBookResponses(books))
+                .nextAfterId(books.size() < pageSize ? null : books.get(books.size() - 1).getId())
+                .build();
+    }
 
-        bookService.getAllBooks()
-                .stream()
-                .filter(Objects::nonNull)
-                .filter(b -> b.getUserId().equals(userId))
-                .forEach(b -> bookService.deleteBookById(b.getId()));
-        log.info("Deleted user's books.");
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_BOOKS_CACHE, key = "#userId")
+    public void deleteUserWithBooks(Integer userId) {
+        userService.getUserById(userId);
+        bookService.deleteAllByUserId(userId);
+        userService.deleteUserById(userId);
+        log.info("Deleted user {} with books", userId);
     }
 
-    private List<Integer> getAllBooksUser(Integer id) {
-        log.info("Get all user's books.");
-        return bookService.getAllBooks()
-                .stream()
-                .filter(Objects::nonNull)
-                .filter(b -> b.getUserId().equals(id))
-                .map(BookDto::getId)
-                .toList();
+    /**
+     * Распределение числа книг в запросе пользователя по операциям.
+     */
+    private void recordBooksPerRequest(String operation, int books) {
+        meterRegistry.summary(BOOKS_PER_REQUEST_METRIC, "operation", operation).record(books);
     }
 }
@@ -0,0 +1,124 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.dto.UserBookRowDto;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.web.constant.ExportFormat;
+import com.edu.ulab.app.web.response.BookResponse;
+import com.edu.ulab.app.web.response.UserExportResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка всех пользователей с книгами.
+ * Строки читаются курсором и сразу пишутся в ответ, поэтому память не зависит от объёма выгрузки:
+ * для NDJSON в памяти держится только текущий пользователь с его книгами.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserExportFacade {
+    private static final String CSV_HEADER = "user_id,full_name,title,age,book_id,book_title,author,page_count";
+
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void exportUsersWithBooks(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<UserBookRowDto> rows = userService.streamUsersWithBooks()) {
+            long exported = switch (format) {
+                case NDJSON -> writeNdjson(rows.iterator(), outputStream);
+                case CSV -> writeCsv(rows.iterator(), outputStream);
+            };
+            log.info("Exported {} rows as {}", exported, format);
+        }
+    }
+
+    private long writeNdjson(Iterator<UserBookRowDto> rows, OutputStream outputStream) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        UserExportResponse user = null;
+        while (rows.hasNext()) {
+            UserBookRowDto row = rows.next();
+            if (user == null || !Objects.equals(user.getId(), row.getUserId())) {
+                writeLine(generator, user);
+                user = toUser(row);
+                count++;
+            }
+            if (row.getBookId() != null) {
+                user.getBooks().add(toBook(row));
+            }
+        }
+        writeLine(generator, user);
+        generator.close();
+        return count;
+    }
+
+    private void writeLine(JsonGenerator generator, UserExportResponse user) throws IOException {
+        if (user != null) {
+            generator.writeObject(user);
+            generator.writeRaw('\n');
+        }
+    }
+
+    private long writeCsv(Iterator<UserBookRowDto> rows, OutputStream outputStream) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            UserBookRowDto row = rows.next();
+            writer.write(String.join(",",
+                    csv(row.getUserId()), csv(row.getFullName()), csv(row.getTitle()), csv(row.getAge()),
+                    csv(row.getBookId()), csv(row.getBookTitle()), csv(row.getAuthor()), csv(row.getPageCount())));
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static UserExportResponse toUser(UserBookRowDto row) {
+        UserExportResponse user = new UserExportResponse();
+        user.setId(row.getUserId());
+        user.setFullName(row.getFullName());
+        user.setTitle(row.getTitle());
+        user.setAge(row.getAge());
+        return user;
+    }
+
+    private static BookResponse toBook(UserBookRowDto row) {
+        BookResponse book = new BookResponse();
+        book.setId(row.getBookId());
+        book.setTitle(row.getBookTitle());
+        book.setAuthor(row.getAuthor());
+        book.setPageCount(row.getPageCount() == null ? 0 : row.getPageCount());
+        return book;
+    }
+}
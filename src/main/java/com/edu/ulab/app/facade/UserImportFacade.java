@@ -0,0 +1,111 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.ImportProperties;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.ImportResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый импорт пользователей с книгами из NDJSON.
+ * Строки читаются по одной и сохраняются пачками по app.import.chunk-size,
+ * каждая пачка - в отдельной транзакции. Некорректная строка пропускается с ошибкой,
+ * пачка, которая не сохранилась, повторяется по одной записи.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserImportFacade {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final UserDataFacade userDataFacade;
+    private final ObjectMapper objectMapper;
+    private final ImportProperties properties;
+
+    public ImportResponse importUsersWithBooks(InputStream body) throws IOException {
+        ImportResult result = new ImportResult();
+        int chunkSize = properties.getChunkSize();
+        ObjectReader reader = objectMapper.readerFor(UserBookRequest.class);
+        List<ImportRecord> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(new ImportRecord(lineNumber, reader.readValue(line)));
+                } catch (JsonProcessingException e) {
+                    result.failed++;
+                    result.error("Line " + lineNumber + ": malformed record: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        log.info("Imported {} users, failed {}", result.imported, result.failed);
+
+        return ImportResponse.builder()
+                .imported(result.imported)
+                .failed(result.failed)
+                .errors(result.errors)
+                .build();
+    }
+
+    private void importChunk(List<ImportRecord> chunk, ImportResult result) {
+        try {
+            userDataFacade.createUsersWithBooks(chunk.stream().map(ImportRecord::request).toList());
+            result.imported += chunk.size();
+        } catch (RuntimeException e) {
+            log.warn("Failed to import lines {}-{}, retrying one by one: {}",
+                    chunk.get(0).line(), chunk.get(chunk.size() - 1).line(), e.getMessage());
+            chunk.forEach(record -> importRecord(record, result));
+        }
+    }
+
+    private void importRecord(ImportRecord record, ImportResult result) {
+        try {
+            userDataFacade.createUsersWithBooks(List.of(record.request()));
+            result.imported++;
+        } catch (RuntimeException e) {
+            log.error("Failed to import line {}", record.line(), e);
+            result.failed++;
+            result.error("Line " + record.line() + ": " + e.getMessage());
+        }
+    }
+
+    private record ImportRecord(long line, UserBookRequest request) {
+    }
+
+    private static class ImportResult {
+        private long imported;
+        private long failed;
+        private final List<String> errors = new ArrayList<>();
+
+        private void error(String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+}
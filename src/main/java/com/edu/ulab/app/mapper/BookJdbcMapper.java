@@ -1,6 +1,7 @@
 package com.edu.ulab.app.mapper;
 
 import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
 import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
@@ -10,11 +11,14 @@ public class BookJdbcMapper implements RowMapper<Book> {
     @Override
     public Book mapRow(ResultSet rs, int rowNum) throws SQLException {
         Book book = new Book();
+        Person person = new Person();
+        person.setId(rs.getInt("person_id"));
 
         book.setId(rs.getInt("id"));
-        book.setAuthor(rs.getString("AUTHOR"));
-        book.setTitle(rs.getString("TITLE"));
-        book.setPageCount(rs.getInt("PAGE_COUNT"));
+        book.setAuthor(rs.getString("author"));
+        book.setTitle(rs.getString("title"));
+        book.setPageCount(rs.getInt("page_count"));
+        book.setPerson(person);
         return book;
     }
 }
@@ -3,6 +3,7 @@ package com.edu.ulab.app.mapper;
 import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.response.BookResponse;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -13,13 +14,19 @@ public interface BookMapper {
 
     BookDto bookRequestToBookDto(BookRequest bookRequest);
 
+    @Mapping(source = "userId", target = "person.id")
     Book bookDtoToBook(BookDto bookDto);
 
     List<BookDto> bookRequestToBookDto(List<BookRequest> bookUpdateRequest);
 
+    @Mapping(source = "person.id", target = "userId")
     BookDto bookToBookDto(Book book);
 
     List<BookDto> booksToBookDtos(Iterable<Book> books);
 
     BookDto ObjectTOBookDto(Object object);
+
+    BookResponse bookDtoToBookResponse(BookDto bookDto);
+
+    List<BookResponse> bookDtosToBookResponses(List<BookDto> bookDtos);
 }
@@ -12,8 +12,8 @@ public class PersonJdbcMapper implements RowMapper<Person> {
         Person person = new Person();
 
         person.setId(rs.getInt("id"));
-        person.setFullName(rs.getString("FULL_NAME"));
-        person.setTitle(rs.getString("TITLE"));
+        person.setFullName(rs.getString("full_name"));
+        person.setTitle(rs.getString("title"));
         person.setAge(rs.getInt("age"));
         return person;
     }
@@ -1,18 +1,65 @@
 package com.edu.ulab.app.repository;
 
+import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.entity.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Таблица book секционирована по хэшу person_id, поэтому запросы задают пользователя: с ним
+ * читается одна секция. Без пользователя секции обходятся все - так делают только выгрузка и
+ * постраничный обход всех книг, а также UPDATE сущности Hibernate при изменении одной книги,
+ * который ищет строку по id.
+ */
 @Repository
 public interface BookRepository extends CrudRepository<Book, Integer> {
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("select b from Book b where b.id = :id")
-    Optional<Book> findByIdForUpdate(Integer id);
+    @Query("select b from Book b where b.id = :id and b.person.id = :personId")
+    Optional<Book> findByIdForUpdate(Integer id, Integer personId);
+
+    @Query("select b from Book b where b.id = :id and b.person.id = :personId")
+    Optional<Book> findByIdAndPersonId(Integer id, Integer personId);
+
+    @Query("select b from Book b where b.person.id = :personId")
+    List<Book> findByPersonId(Integer personId);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+    @Query("select b.id from Book b where b.person.id = :personId")
+    List<Integer> findIdsByPersonId(Integer personId);
+
+    @Query("select new com.edu.ulab.app.dto.BookDto(b.id, b.person.id, b.title, b.author, b.pageCount) "
+            + "from Book b where b.person.id in :personIds order by b.id")
+    List<BookDto> findByPersonIdIn(Collection<Integer> personIds);
+
+    @Query("select b from Book b where b.person.id = :personId and b.id > :afterId order by b.id")
+    List<Book> findPageByPersonId(Integer personId, Integer afterId, Pageable pageable);
+
+    @Query("select b from Book b where b.id > :afterId order by b.id")
+    List<Book> findPageAfter(Integer afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500"))
+    @Query("select new com.edu.ulab.app.dto.BookDto(b.id, b.person.id, b.title, b.author, b.pageCount) "
+            + "from Book b order by b.id")
+    Stream<BookDto> streamAll();
+
+    @Modifying
+    @Query("delete from Book b where b.person.id = :personId")
+    int deleteAllByPersonId(Integer personId);
+
+    @Modifying
+    @Query("delete from Book b where b.id = :id and b.person.id = :personId")
+    int deleteByIdAndPersonId(Integer id, Integer personId);
 }
@@ -0,0 +1,78 @@
+package com.edu.ulab.app.repository;
+
+import com.edu.ulab.app.web.response.UserBookResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Ответы на выполненные запросы создания в таблице ulab_edu.idempotency_key.
+ * Идентификаторы книг хранятся строкой через запятую: ответ читается только целиком.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "app.idempotency.table.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<StoredResponse> findResponse(String requestId, Instant createdAfter) {
+        final String GET_SQL = "SELECT user_id, book_ids, request_hash FROM ulab_edu.idempotency_key "
+                + "WHERE request_id = ? AND created_at > ?";
+        return jdbcTemplate.query(GET_SQL,
+                        (rs, rowNum) -> new StoredResponse(
+                                UserBookResponse.builder()
+                                        .userId(rs.getInt("user_id"))
+                                        .booksIdList(parseBookIds(rs.getString("book_ids")))
+                                        .build(),
+                                rs.getString("request_hash")),
+                        requestId, Timestamp.from(createdAfter))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Сохраняет ответ в текущей транзакции. Устаревшая запись с тем же ключом удаляется,
+     * действующая приводит к DuplicateKeyException и откату транзакции.
+     */
+    public void insert(String requestId, String requestHash, UserBookResponse response, Instant expiredBefore) {
+        final String DELETE_EXPIRED_SQL = "DELETE FROM ulab_edu.idempotency_key WHERE request_id = ? AND created_at <= ?";
+        final String INSERT_SQL = "INSERT INTO ulab_edu.idempotency_key(request_id, user_id, book_ids, request_hash, created_at) "
+                + "VALUES (?,?,?,?,?)";
+        jdbcTemplate.update(DELETE_EXPIRED_SQL, requestId, Timestamp.from(expiredBefore));
+        jdbcTemplate.update(INSERT_SQL, requestId, response.getUserId(),
+                response.getBooksIdList().stream().map(String::valueOf).collect(Collectors.joining(",")),
+                requestHash, Timestamp.from(Instant.now()));
+    }
+
+    public int deleteCreatedBefore(Instant createdBefore) {
+        final String DELETE_EXPIRED_SQL = "DELETE FROM ulab_edu.idempotency_key WHERE created_at <= ?";
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.from(createdBefore));
+        log.debug("Deleted {} expired idempotency keys", deleted);
+        return deleted;
+    }
+
+    /**
+     * Ответ и хэш запроса, на который он дан; хэш null у ключей, записанных до появления колонки request_hash.
+     */
+    public record StoredResponse(UserBookResponse response, String requestHash) {
+    }
+
+    private static List<Integer> parseBookIds(String bookIds) {
+        if (bookIds.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(bookIds.split(","))
+                .map(Integer::valueOf)
+                .toList();
+    }
+}
@@ -0,0 +1,137 @@
+package com.edu.ulab.app.repository;
+
+import com.edu.ulab.app.dto.BookDto;
+import lombok.RequiredArgsConstructor;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Неблокирующий репозиторий книг ulab_edu.book на R2DBC.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveBookRepository {
+    private final DatabaseClient reactiveDatabaseClient;
+
+    /**
+     * Вставка книг одним многострочным INSERT ... VALUES, идентификаторы должны быть уже назначены.
+     */
+    public Mono<List<BookDto>> insertAll(List<BookDto> books) {
+        if (books.isEmpty()) {
+            return Mono.just(books);
+        }
+        final String INSERT_SQL = "INSERT INTO ulab_edu.book(id, person_id, title, author, page_count, version) VALUES "
+                + IntStream.range(0, books.size())
+                .mapToObj(i -> "(:id" + i + ", :personId" + i + ", :title" + i + ", :author" + i + ", :pageCount" + i + ", 0)")
+                .collect(Collectors.joining(", "));
+        DatabaseClient.GenericExecuteSpec spec = reactiveDatabaseClient.sql(INSERT_SQL);
+        for (int i = 0; i < books.size(); i++) {
+            BookDto book = books.get(i);
+            spec = spec.bind("id" + i, book.getId())
+                    .bind("personId" + i, book.getUserId())
+                    .bind("title" + i, book.getTitle())
+                    .bind("author" + i, book.getAuthor())
+                    .bind("pageCount" + i, book.getPageCount());
+        }
+        return spec.then()
+                .thenReturn(books);
+    }
+
+    /**
+     * Обновление книг одним пакетом привязок параметров с проверкой версии строки.
+     * Для каждой книги - число обновлённых строк в порядке списка: 0 значит, что книгу изменили после чтения версии.
+     */
+    public Mono<List<Integer>> updateAll(List<VersionedBook> books) {
+        if (books.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        final String UPDATE_SQL = "UPDATE ulab_edu.book SET title = $1, author = $2, page_count = $3, "
+                + "version = version + 1 WHERE id = $4 AND person_id = $5 AND version = $6";
+        return reactiveDatabaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(UPDATE_SQL);
+                    for (int i = 0; i < books.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        BookDto book = books.get(i).book();
+                        statement.bind(0, book.getTitle())
+                                .bind(1, book.getAuthor())
+                                .bind(2, book.getPageCount())
+                                .bind(3, book.getId())
+                                .bind(4, book.getUserId())
+                                .bind(5, books.get(i).version());
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(Result::getRowsUpdated);
+                })
+                .collectList();
+    }
+
+    public Flux<Integer> findIdsByPersonId(Integer personId) {
+        final String GET_USER_BOOK_IDS_SQL = "SELECT id FROM ulab_edu.book WHERE person_id = :personId ORDER BY id";
+        return reactiveDatabaseClient.sql(GET_USER_BOOK_IDS_SQL)
+                .bind("personId", personId)
+                .map(row -> row.get("id", Integer.class))
+                .all();
+    }
+
+    /**
+     * Книги пользователя потоком: строки читаются из базы по мере запроса подписчиком.
+     */
+    public Flux<BookDto> findByPersonId(Integer personId) {
+        final String GET_USER_BOOKS_SQL = "SELECT id, person_id, title, author, page_count FROM ulab_edu.book "
+                + "WHERE person_id = :personId ORDER BY id";
+        return reactiveDatabaseClient.sql(GET_USER_BOOKS_SQL)
+                .bind("personId", personId)
+                .map(row -> new BookDto(
+                        row.get("id", Integer.class),
+                        row.get("person_id", Integer.class),
+                        row.get("title", String.class),
+                        row.get("author", String.class),
+                        row.get("page_count", Integer.class)))
+                .all();
+    }
+
+    /**
+     * Книги пользователя с версиями строк: с ними сравнивается запрос на обновление.
+     */
+    public Flux<VersionedBook> findVersionedByPersonId(Integer personId) {
+        final String GET_USER_BOOKS_SQL = "SELECT id, person_id, title, author, page_count, version FROM ulab_edu.book "
+                + "WHERE person_id = :personId";
+        return reactiveDatabaseClient.sql(GET_USER_BOOKS_SQL)
+                .bind("personId", personId)
+                .map(row -> new VersionedBook(
+                        new BookDto(
+                                row.get("id", Integer.class),
+                                row.get("person_id", Integer.class),
+                                row.get("title", String.class),
+                                row.get("author", String.class),
+                                row.get("page_count", Integer.class)),
+                        row.get("version", Long.class)))
+                .all();
+    }
+
+    public Mono<Integer> deleteAllByPersonId(Integer personId) {
+        final String DELETE_USER_BOOKS_SQL = "DELETE FROM ulab_edu.book WHERE person_id = :personId";
+        return reactiveDatabaseClient.sql(DELETE_USER_BOOKS_SQL)
+                .bind("personId", personId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Книга и версия её строки, прочитанная до обновления.
+     */
+    public record VersionedBook(BookDto book, long version) {
+    }
+}
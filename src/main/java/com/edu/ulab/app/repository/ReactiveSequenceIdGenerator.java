@@ -0,0 +1,75 @@
+package com.edu.ulab.app.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Неблокирующий аналог JdbcSequenceIdGenerator: идентификаторы из последовательности sequence
+ * по схеме legacy hi/lo Hibernate, поэтому они не пересекаются с идентификаторами JPA.
+ * Текущий блок хранится в памяти и выдаётся без блокировок через compare-and-set.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveSequenceIdGenerator {
+    /**
+     * Должен совпадать с allocationSize генератора sequence в сущностях.
+     */
+    private static final int ALLOCATION_SIZE = 100;
+
+    private final DatabaseClient reactiveDatabaseClient;
+    private final AtomicReference<IdBlock> currentBlock = new AtomicReference<>(new IdBlock(0, 0));
+
+    public Mono<List<Integer>> nextIds(int count) {
+        if (count == 0) {
+            return Mono.just(List.of());
+        }
+        while (true) {
+            IdBlock block = currentBlock.get();
+            if (block.end - block.next < count) {
+                break;
+            }
+            if (currentBlock.compareAndSet(block, new IdBlock(block.next + count, block.end))) {
+                return Mono.just(range(block.next, count));
+            }
+        }
+
+        final String NEXT_ID_BLOCKS_SQL = "SELECT nextval('sequence') AS hi FROM generate_series(1, :blockCount)";
+        int blockCount = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        return reactiveDatabaseClient.sql(NEXT_ID_BLOCKS_SQL)
+                .bind("blockCount", blockCount)
+                .map(row -> row.get("hi", Long.class).intValue())
+                .all()
+                .collectList()
+                .map(idBlocks -> {
+                    List<Integer> ids = new ArrayList<>(count);
+                    for (Integer idBlock : idBlocks) {
+                        int start = idBlock * ALLOCATION_SIZE;
+                        int taken = Math.min(ALLOCATION_SIZE, count - ids.size());
+                        ids.addAll(range(start, taken));
+                        if (taken < ALLOCATION_SIZE) {
+                            currentBlock.set(new IdBlock(start + taken, start + ALLOCATION_SIZE));
+                        }
+                    }
+                    return ids;
+                });
+    }
+
+    private static List<Integer> range(int start, int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(start + i);
+        }
+        return ids;
+    }
+
+    private record IdBlock(int next, int end) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.edu.ulab.app.repository;
+
+import com.edu.ulab.app.dto.UserBookRowDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+
+/**
+ * Неблокирующий репозиторий пользователей ulab_edu.person на R2DBC.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+    private final DatabaseClient reactiveDatabaseClient;
+
+    public Mono<UserDto> insert(UserDto user) {
+        final String INSERT_SQL = "INSERT INTO ulab_edu.person(id, full_name, title, age, version) "
+                + "VALUES (:id, :fullName, :title, :age, 0)";
+        return reactiveDatabaseClient.sql(INSERT_SQL)
+                .bind("id", user.getId())
+                .bind("fullName", user.getFullName())
+                .bind("title", user.getTitle())
+                .bind("age", user.getAge())
+                .then()
+                .thenReturn(user);
+    }
+
+    public Mono<Integer> update(UserDto user) {
+        final String UPDATE_SQL = "UPDATE ulab_edu.person SET full_name = :fullName, title = :title, age = :age, "
+                + "version = version + 1 "
+                + "WHERE id = :id";
+        return reactiveDatabaseClient.sql(UPDATE_SQL)
+                .bind("id", user.getId())
+                .bind("fullName", user.getFullName())
+                .bind("title", user.getTitle())
+                .bind("age", user.getAge())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Пользователь с идентификаторами книг одним запросом; пустой результат, если пользователя нет.
+     */
+    public Mono<UserWithBooksDto> findWithBookIdsById(Integer id) {
+        final String GET_WITH_BOOKS_SQL = "SELECT p.id, p.full_name, p.title, p.age, b.id AS book_id "
+                + "FROM ulab_edu.person p LEFT JOIN ulab_edu.book b ON b.person_id = p.id "
+                + "WHERE p.id = :id ORDER BY b.id";
+        return reactiveDatabaseClient.sql(GET_WITH_BOOKS_SQL)
+                .bind("id", id)
+                .map(row -> new UserBookRowDto(
+                        row.get("id", Integer.class),
+                        row.get("full_name", String.class),
+                        row.get("title", String.class),
+                        row.get("age", Integer.class),
+                        row.get("book_id", Integer.class),
+                        null, null, null))
+                .all()
+                .reduceWith(UserWithBooksDto::new, ReactiveUserRepository::accumulate)
+                .filter(userWithBooks -> userWithBooks.getUser() != null);
+    }
+
+    public Mono<Integer> deleteById(Integer id) {
+        final String DELETE_SQL = "DELETE FROM ulab_edu.person WHERE id = :id";
+        return reactiveDatabaseClient.sql(DELETE_SQL)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static UserWithBooksDto accumulate(UserWithBooksDto userWithBooks, UserBookRowDto row) {
+        if (userWithBooks.getUser() == null) {
+            UserDto user = new UserDto();
+            user.setId(row.getUserId());
+            user.setFullName(row.getFullName());
+            user.setTitle(row.getTitle());
+            user.setAge(row.getAge());
+            userWithBooks.setUser(user);
+            userWithBooks.setBookIdList(new ArrayList<>());
+        }
+        if (row.getBookId() != null) {
+            userWithBooks.getBookIdList().add(row.getBookId());
+        }
+        return userWithBooks;
+    }
+}
@@ -1,13 +1,17 @@
 package com.edu.ulab.app.repository;
 
+import com.edu.ulab.app.dto.UserBookRowDto;
 import com.edu.ulab.app.entity.Person;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends CrudRepository<Person, Integer> {
@@ -21,4 +25,13 @@ public interface UserRepository extends CrudRepository<Person, Integer> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select p from Person p where p.id = :id")
     Optional<Person> findByIdForUpdate(Integer id);
+
+    @Query("select distinct p from Person p left join fetch p.bookSet where p.id = :id")
+    Optional<Person> findWithBooksById(Integer id);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500"))
+    @Query("select new com.edu.ulab.app.dto.UserBookRowDto("
+            + "p.id, p.fullName, p.title, p.age, b.id, b.title, b.author, b.pageCount) "
+            + "from Person p left join p.bookSet b order by p.id, b.id")
+    Stream<UserBookRowDto> streamAllWithBooks();
 }
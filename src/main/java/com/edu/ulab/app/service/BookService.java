@@ -3,14 +3,60 @@ package com.edu.ulab.app.service;
 
 import com.edu.ulab.app.dto.BookDto;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 public interface BookService {
     BookDto createBook(BookDto bookDto);
 
+    List<BookDto> createBooks(List<BookDto> bookDtos);
+
+    /**
+     * Книга ищется по идентификатору и пользователю bookDto.userId.
+     */
     BookDto updateBook(BookDto bookDto);
 
-    BookDto getBookById(Integer id);
+    /**
+     * Приводит книги пользователя к переданному списку: книги без идентификатора создаются,
+     * изменённые книги обновляются пакетом, неизменённые не трогаются. Текущие книги читаются один раз,
+     * книги пользователя, которых нет в списке, остаются как есть.
+     *
+     * @return идентификаторы всех книг пользователя по возрастанию
+     * @throws com.edu.ulab.app.exception.NotFoundException если книга из списка не принадлежит пользователю
+     */
+    List<Integer> updateBooks(Integer userId, List<BookDto> bookDtos);
+
+    /**
+     * Идентификаторы книг по пользователям одним запросом по person_id IN (...), по возрастанию.
+     * Пользователей без книг в результате нет.
+     */
+    Map<Integer, List<Integer>> findIdsByUserIds(Collection<Integer> userIds);
+
+    /**
+     * @throws com.edu.ulab.app.exception.NotFoundException если у пользователя нет такой книги
+     */
+    BookDto getBookById(Integer userId, Integer id);
+
+    void deleteBookById(Integer userId, Integer id);
+
+    void deleteAllByUserId(Integer userId);
+
+    /**
+     * Страница книг с идентификатором больше afterId, упорядоченная по идентификатору.
+     */
+    List<BookDto> getBooksPage(Integer afterId, int limit);
+
+    /**
+     * Все книги потоком без загрузки таблицы в память.
+     * Поток нужно закрыть и прочитать внутри транзакции вызывающего кода.
+     */
+    Stream<BookDto> streamAllBooks();
+
+    List<BookDto> findByUserId(Integer userId);
 
-    void deleteBookById(Integer id);
+    List<BookDto> findByUserId(Integer userId, Integer afterId, int limit);
 
-    Iterable<BookDto> getAllBooks();
+    List<Integer> findIdsByUserId(Integer userId);
 }
@@ -0,0 +1,34 @@
+package com.edu.ulab.app.service;
+
+import com.edu.ulab.app.web.response.UserBookResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    String REPLAYS_METRIC = "app.idempotency.replays";
+
+    /**
+     * Выполняет создание один раз на ключ: повтор с тем же ключом, в том числе пока первый запрос
+     * ещё выполняется, получает исходный ответ без записи в базу. Пустой ключ не дедуплицируется.
+     * Ключ, уже использованный запросом с другим requestHash, завершается IdempotencyKeyReusedException,
+     * не дождавшийся исходного запроса повтор - RequestInProgressException.
+     */
+    UserBookResponse execute(String requestId, String requestHash, Supplier<UserBookResponse> operation);
+
+    /**
+     * SHA-256 метода, пути и тела запроса в hex.
+     */
+    static String requestHash(String method, String path, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((method + ' ' + path + '\n').getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
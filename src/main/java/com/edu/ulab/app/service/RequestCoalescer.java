@@ -0,0 +1,19 @@
+package com.edu.ulab.app.service;
+
+import java.util.function.Supplier;
+
+public interface RequestCoalescer {
+    String COALESCED_METRIC = "app.cache.coalesced";
+
+    /**
+     * Выполняет загрузку один раз на ключ среди одновременных вызовов: вызовы, пришедшие
+     * во время загрузки, получают её результат или ошибку. Завершённые загрузки не запоминаются.
+     */
+    <V> V execute(String operation, Object key, Supplier<V> loader);
+
+    /**
+     * Отцепляет выполняющуюся загрузку ключа: следующие вызовы начнут новую, а вызовы,
+     * уже ожидающие старую, получат её результат.
+     */
+    void detach(String operation, Object key);
+}
@@ -1,15 +1,36 @@
 package com.edu.ulab.app.service;
 
+import com.edu.ulab.app.dto.UserBookRowDto;
 import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface UserService {
     UserDto createUser(UserDto userDto);
 
+    List<UserDto> createUsers(List<UserDto> userDtos);
+
     UserDto updateUser(UserDto userDto);
 
     UserDto getUserById(Integer id);
 
+    UserWithBooksDto getUserWithBooksById(Integer id);
+
+    /**
+     * Найденные пользователи одним запросом по id IN (...), в произвольном порядке; отсутствующие пропускаются.
+     */
+    List<UserDto> getUsersByIds(Collection<Integer> ids);
+
     void deleteUserById(Integer id);
+
+    /**
+     * Все пользователи, соединённые с книгами, упорядоченно по пользователю и книге.
+     * Поток нужно закрыть и прочитать внутри транзакции вызывающего кода.
+     */
+    Stream<UserBookRowDto> streamUsersWithBooks();
 }
@@ -1,5 +1,6 @@
 package com.edu.ulab.app.service.impl;
 
+import com.edu.ulab.app.config.LockingProperties;
 import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.exception.NotFoundException;
@@ -7,68 +8,229 @@ import com.edu.ulab.app.mapper.BookMapper;
 import com.edu.ulab.app.repository.BookRepository;
 import com.edu.ulab.app.service.BookService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "app.persistence.backend", havingValue = "jpa", matchIfMissing = true)
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
 
     private final BookMapper bookMapper;
 
+    private final LockingProperties lockingProperties;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
     public BookServiceImpl(BookRepository bookRepository,
-                           BookMapper bookMapper) {
+                           BookMapper bookMapper,
+                           LockingProperties lockingProperties,
+                           JdbcTemplate jdbcTemplate,
+                           EntityManager entityManager) {
         this.bookRepository = bookRepository;
         this.bookMapper = bookMapper;
+        this.lockingProperties = lockingProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
     }
 
     @Override
     public BookDto createBook(BookDto bookDto) {
         Book book = bookMapper.bookDtoToBook(bookDto);
-        log.info("Mapped book: {}", book);
         Book savedBook = bookRepository.save(book);
-        log.info("Saved book: {}", savedBook);
+        log.debug("Saved book: {}", savedBook.getId());
         return bookMapper.bookToBookDto(savedBook);
     }
 
+    @Override
+    @Transactional
+    public List<BookDto> createBooks(List<BookDto> bookDtos) {
+        List<Book> books = bookDtos.stream()
+                .map(bookMapper::bookDtoToBook)
+                .toList();
+        List<BookDto> savedBooks = bookMapper.booksToBookDtos(bookRepository.saveAll(books));
+        log.debug("Saved {} books", savedBooks.size());
+        return savedBooks;
+    }
+
     @Override
     public BookDto updateBook(BookDto bookDto) {
         Book book = bookMapper.bookDtoToBook(bookDto);
-        log.info("Mapped book: {}", book);
 
-        Book bookSource = bookRepository.findByIdForUpdate(book.getId())
+        Book bookSource = (lockingProperties.isOptimistic()
+                ? bookRepository.findByIdAndPersonId(book.getId(), bookDto.getUserId())
+                : bookRepository.findByIdForUpdate(book.getId(), bookDto.getUserId()))
                 .orElseThrow(() -> new NotFoundException("No book with id: " + book.getId()));
 
         bookSource.setAuthor(book.getAuthor());  /// mapper
         bookSource.setTitle(book.getTitle());
         bookSource.setPageCount(book.getPageCount());
-        log.debug("Update book: {}", bookSource);
 
         Book savedBook = bookRepository.save(bookSource);
-        log.info("Saved book: {}", savedBook);
+        log.debug("Saved book: {}", savedBook.getId());
 
         return bookMapper.bookToBookDto(savedBook);
     }
 
+    /**
+     * Изменившиеся книги обновляются одним пакетом JDBC с person_id в условии: в секционированной таблице
+     * каждый UPDATE читает одну секцию, тогда как UPDATE сущности при dirty checking ищет строку только по id.
+     * Книги без изменений в UPDATE не попадают.
+     */
     @Override
-    public BookDto getBookById(Integer id) {
-        Book book = bookRepository.findById(id)
+    @Transactional
+    public List<Integer> updateBooks(Integer userId, List<BookDto> bookDtos) {
+        Map<Integer, Book> currentBooks = bookRepository.findByPersonId(userId)
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> newBooks = new ArrayList<>();
+        List<BookDto> changedBooks = new ArrayList<>();
+        for (BookDto bookDto : bookDtos) {
+            if (bookDto.getId() == null) {
+                bookDto.setUserId(userId);
+                newBooks.add(bookMapper.bookDtoToBook(bookDto));
+                continue;
+            }
+            Book bookSource = currentBooks.get(bookDto.getId());
+            if (bookSource == null) {
+                throw new NotFoundException("No book with id: " + bookDto.getId());
+            }
+            if (isChanged(bookSource, bookDto)) {
+                bookDto.setUserId(userId);
+                changedBooks.add(bookDto);
+            }
+        }
+        updateChangedBooks(changedBooks, currentBooks);
+        bookRepository.saveAll(newBooks);
+        log.debug("Updated {} and created {} books of user with id: {}", changedBooks.size(), newBooks.size(), userId);
+
+        return Stream.concat(currentBooks.keySet().stream(), newBooks.stream().map(Book::getId))
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public Map<Integer, List<Integer>> findIdsByUserIds(Collection<Integer> userIds) {
+        return bookRepository.findByPersonIdIn(userIds)
+                .stream()
+                .collect(Collectors.groupingBy(BookDto::getUserId,
+                        Collectors.mapping(BookDto::getId, Collectors.toList())));
+    }
+
+    @Override
+    public BookDto getBookById(Integer userId, Integer id) {
+        Book book = bookRepository.findByIdAndPersonId(id, userId)
                 .orElseThrow(() -> new NotFoundException("No book with id: " + id));
-        log.info("Book with id: {}", id);
+        log.debug("Book with id: {}", id);
         return bookMapper.bookToBookDto(book);
     }
 
     @Override
-    public void deleteBookById(Integer id) {
-        bookRepository.deleteById(id);
-        log.info("Delete book with id: {}", id);
+    @Transactional
+    public void deleteBookById(Integer userId, Integer id) {
+        bookRepository.deleteByIdAndPersonId(id, userId);
+        log.debug("Delete book with id: {}", id);
     }
 
     @Override
-    public List<BookDto> getAllBooks() {
-        return bookMapper.booksToBookDtos(bookRepository.findAll());
+    @Transactional
+    public void deleteAllByUserId(Integer userId) {
+        int deleted = bookRepository.deleteAllByPersonId(userId);
+        log.debug("Deleted {} books of user with id: {}", deleted, userId);
+    }
+
+    @Override
+    public List<BookDto> getBooksPage(Integer afterId, int limit) {
+        return bookMapper.booksToBookDtos(bookRepository.findPageAfter(afterId, PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public Stream<BookDto> streamAllBooks() {
+        return bookRepository.streamAll();
+    }
+
+    @Override
+    public List<BookDto> findByUserId(Integer userId) {
+        return bookMapper.booksToBookDtos(bookRepository.findByPersonId(userId));
+    }
+
+    @Override
+    public List<BookDto> findByUserId(Integer userId, Integer afterId, int limit) {
+        return bookMapper.booksToBookDtos(
+                bookRepository.findPageByPersonId(userId, afterId, PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public List<Integer> findIdsByUserId(Integer userId) {
+        List<Integer> bookIds = bookRepository.findIdsByPersonId(userId);
+        log.debug("Found {} books of user with id: {}", bookIds.size(), userId);
+        return bookIds;
+    }
+
+    /**
+     * Версия проверяется и увеличивается как в UPDATE сущности: 0 строк - книгу изменили или удалили.
+     * Запись идёт мимо Hibernate, поэтому прочитанные сущности отсоединяются, а из кэша второго уровня
+     * после коммита удаляются только обновлённые книги.
+     */
+    private void updateChangedBooks(List<BookDto> changedBooks, Map<Integer, Book> currentBooks) {
+        if (changedBooks.isEmpty()) {
+            return;
+        }
+        final String UPDATE_SQL = "UPDATE ulab_edu.book SET title = ?, author = ?, page_count = ?, version = version + 1 "
+                + "WHERE id = ? AND person_id = ? AND version = ?";
+        int[][] updateCounts = jdbcTemplate.batchUpdate(UPDATE_SQL, changedBooks, changedBooks.size(), (ps, book) -> {
+            ps.setString(1, book.getTitle());
+            ps.setString(2, book.getAuthor());
+            ps.setInt(3, book.getPageCount());
+            ps.setInt(4, book.getId());
+            ps.setInt(5, book.getUserId());
+            ps.setLong(6, currentBooks.get(book.getId()).getVersion());
+        });
+        for (int i = 0; i < changedBooks.size(); i++) {
+            if (updateCounts[0][i] == 0) {
+                throw new ObjectOptimisticLockingFailureException(Book.class, changedBooks.get(i).getId());
+            }
+        }
+
+        List<Integer> changedIds = changedBooks.stream().map(BookDto::getId).toList();
+        changedIds.forEach(id -> entityManager.detach(currentBooks.get(id)));
+        Runnable evict = () -> changedIds.forEach(id ->
+                entityManager.getEntityManagerFactory().getCache().evict(Book.class, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    private static boolean isChanged(Book bookSource, BookDto bookDto) {
+        return !Objects.equals(bookSource.getTitle(), bookDto.getTitle())
+                || !Objects.equals(bookSource.getAuthor(), bookDto.getAuthor())
+                || bookSource.getPageCount() != bookDto.getPageCount();
     }
 }
@@ -0,0 +1,155 @@
+package com.edu.ulab.app.service.impl;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.storage.Storage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.persistence.backend", havingValue = "memory")
+@RequiredArgsConstructor
+public class BookServiceImplStorage implements BookService {
+    private final Storage storage;
+
+    private final BookMapper bookMapper;
+
+    @Override
+    public BookDto createBook(BookDto bookDto) {
+        Book savedBook = storage.saveBook(bookMapper.bookDtoToBook(bookDto));
+        log.debug("Saved book: {}", savedBook.getId());
+        return bookMapper.bookToBookDto(savedBook);
+    }
+
+    @Override
+    public List<BookDto> createBooks(List<BookDto> bookDtos) {
+        List<BookDto> savedBooks = bookDtos.stream()
+                .map(bookMapper::bookDtoToBook)
+                .map(storage::saveBook)
+                .map(bookMapper::bookToBookDto)
+                .toList();
+        log.debug("Saved {} books", savedBooks.size());
+        return savedBooks;
+    }
+
+    @Override
+    public BookDto updateBook(BookDto bookDto) {
+        Book bookSource = storage.findBookById(bookDto.getId())
+                .filter(book -> book.getPerson().getId().equals(bookDto.getUserId()))
+                .orElseThrow(() -> new NotFoundException("No book with id: " + bookDto.getId()));
+
+        Book updatedBook = storage.replaceBook(updatedCopy(bookSource, bookDto));
+        log.debug("Update book: {}", updatedBook.getId());
+
+        return bookMapper.bookToBookDto(updatedBook);
+    }
+
+    @Override
+    public List<Integer> updateBooks(Integer userId, List<BookDto> bookDtos) {
+        Map<Integer, Book> currentBooks = storage.findBooksByPersonId(userId)
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Integer> bookIdList = new ArrayList<>(currentBooks.keySet());
+        for (BookDto bookDto : bookDtos) {
+            if (bookDto.getId() == null) {
+                bookDto.setUserId(userId);
+                bookIdList.add(storage.saveBook(bookMapper.bookDtoToBook(bookDto)).getId());
+                continue;
+            }
+            Book bookSource = currentBooks.get(bookDto.getId());
+            if (bookSource == null) {
+                throw new NotFoundException("No book with id: " + bookDto.getId());
+            }
+            storage.replaceBook(updatedCopy(bookSource, bookDto));
+        }
+        log.debug("Updated books of user with id: {}", userId);
+
+        bookIdList.sort(null);
+        return bookIdList;
+    }
+
+    @Override
+    public Map<Integer, List<Integer>> findIdsByUserIds(Collection<Integer> userIds) {
+        Map<Integer, List<Integer>> bookIdsByUser = new HashMap<>();
+        userIds.forEach(userId -> {
+            List<Integer> bookIds = storage.findBookIdsByPersonId(userId);
+            if (!bookIds.isEmpty()) {
+                bookIdsByUser.put(userId, bookIds);
+            }
+        });
+        return bookIdsByUser;
+    }
+
+    @Override
+    public BookDto getBookById(Integer userId, Integer id) {
+        Book book = storage.findBookById(id)
+                .filter(found -> found.getPerson().getId().equals(userId))
+                .orElseThrow(() -> new NotFoundException("No book with id: " + id));
+        return bookMapper.bookToBookDto(book);
+    }
+
+    @Override
+    public void deleteBookById(Integer userId, Integer id) {
+        storage.findBookById(id)
+                .filter(book -> book.getPerson().getId().equals(userId))
+                .ifPresent(book -> storage.deleteBookById(id));
+        log.debug("Delete book with id: {}", id);
+    }
+
+    @Override
+    public void deleteAllByUserId(Integer userId) {
+        int deleted = storage.deleteBooksByPersonId(userId);
+        log.debug("Deleted {} books of user with id: {}", deleted, userId);
+    }
+
+    @Override
+    public List<BookDto> getBooksPage(Integer afterId, int limit) {
+        return bookMapper.booksToBookDtos(storage.findBooksAfter(afterId, limit));
+    }
+
+    @Override
+    public Stream<BookDto> streamAllBooks() {
+        return storage.streamBooks().map(bookMapper::bookToBookDto);
+    }
+
+    @Override
+    public List<BookDto> findByUserId(Integer userId) {
+        return bookMapper.booksToBookDtos(storage.findBooksByPersonId(userId));
+    }
+
+    @Override
+    public List<BookDto> findByUserId(Integer userId, Integer afterId, int limit) {
+        return bookMapper.booksToBookDtos(storage.findBooksByPersonId(userId, afterId, limit));
+    }
+
+    @Override
+    public List<Integer> findIdsByUserId(Integer userId) {
+        return storage.findBookIdsByPersonId(userId);
+    }
+
+    /**
+     * Хранимая книга видна другим потокам, поэтому изменения записываются в копию.
+     */
+    private Book updatedCopy(Book bookSource, BookDto bookDto) {
+        Book book = bookMapper.bookDtoToBook(bookDto);
+        book.setId(bookSource.getId());
+        book.setVersion(bookSource.getVersion());
+        book.setPerson(bookSource.getPerson());
+        return book;
+    }
+}
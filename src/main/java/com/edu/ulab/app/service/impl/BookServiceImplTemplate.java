@@ -1,5 +1,6 @@
 package com.edu.ulab.app.service.impl;
 
+import com.edu.ulab.app.config.LockingProperties;
 import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.exception.NotFoundException;
@@ -8,72 +9,166 @@ import com.edu.ulab.app.mapper.BookMapper;
 import com.edu.ulab.app.service.BookService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.PreparedStatementCreator;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "app.persistence.backend", havingValue = "jdbc")
 @RequiredArgsConstructor
 public class BookServiceImplTemplate implements BookService {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final BookJdbcMapper BOOK_ROW_MAPPER = new BookJdbcMapper();
+    private static final String UPDATE_SQL = "UPDATE ulab_edu.book SET title = ?, author = ?, page_count = ?, "
+            + "version = version + 1 WHERE id = ? AND person_id = ? AND version = ?";
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final JdbcSequenceIdGenerator idGenerator;
+
     private final BookMapper bookMapper;
 
+    private final LockingProperties lockingProperties;
+
     @Override
     public BookDto createBook(BookDto bookDto) {
-        final String INSERT_SQL = "INSERT INTO BOOK(TITLE, AUTHOR, PAGE_COUNT, USER_ID) VALUES (?,?,?,?)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbcTemplate.update(
-                new PreparedStatementCreator() {
-                    public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
-                        PreparedStatement ps =
-                                connection.prepareStatement(INSERT_SQL, new String[]{"id"});
-                        ps.setString(1, bookDto.getTitle());
-                        ps.setString(2, bookDto.getAuthor());
-                        ps.setLong(3, bookDto.getPageCount());
-                        ps.setLong(4, bookDto.getUserId());
-                        return ps;
-                    }
-                },
-                keyHolder);
-
-        bookDto.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+        final String INSERT_SQL = "INSERT INTO ulab_edu.book(id, title, author, page_count, person_id, version) VALUES (?,?,?,?,?,0)";
+        bookDto.setId(idGenerator.nextId());
+        jdbcTemplate.update(INSERT_SQL,
+                bookDto.getId(), bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPageCount(), bookDto.getUserId());
         return bookDto;
     }
 
     @Override
-    public BookDto updateBook(BookDto bookDto) {
-        final String UPDATE_SQL = "UPDATE BOOK SET TITLE = ?, AUTHOR = ?, PAGE_COUNT = ? WHERE id = ?";
-        jdbcTemplate.update(
-                connection -> {
-                    PreparedStatement ps = connection.prepareStatement(UPDATE_SQL, new String[]{"id"});
-                    ps.setString(1, bookDto.getTitle());
-                    ps.setString(2, bookDto.getAuthor());
-                    ps.setInt(3, bookDto.getPageCount());
-                    ps.setInt(4, bookDto.getId());
-                    return ps;
-                });
+    public List<BookDto> createBooks(List<BookDto> bookDtos) {
+        if (bookDtos.isEmpty()) {
+            return bookDtos;
+        }
+        final String INSERT_SQL = "INSERT INTO ulab_edu.book(id, title, author, page_count, person_id, version) VALUES (?,?,?,?,?,0)";
 
+        List<Integer> ids = idGenerator.nextIds(bookDtos.size());
+        for (int i = 0; i < bookDtos.size(); i++) {
+            bookDtos.get(i).setId(ids.get(i));
+        }
 
-//        jdbcTemplate.update(UPDATE_SQL, bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPageCount(), bookDto.getId());
+        jdbcTemplate.batchUpdate(INSERT_SQL, bookDtos, bookDtos.size(), (ps, book) -> {
+            ps.setInt(1, book.getId());
+            ps.setString(2, book.getTitle());
+            ps.setString(3, book.getAuthor());
+            ps.setInt(4, book.getPageCount());
+            ps.setInt(5, book.getUserId());
+        });
+        log.debug("Saved {} books", bookDtos.size());
+        return bookDtos;
+    }
 
+    @Override
+    public BookDto updateBook(BookDto bookDto) {
+        final String GET_VERSION_SQL = "SELECT version FROM ulab_edu.book WHERE id = ? AND person_id = ?"
+                + lockClause();
+        List<Long> versions = jdbcTemplate.queryForList(GET_VERSION_SQL, Long.class, bookDto.getId(), bookDto.getUserId());
+        if (versions.isEmpty()) {
+            throw new NotFoundException("No book with id: " + bookDto.getId());
+        }
+        int updated = jdbcTemplate.update(UPDATE_SQL,
+                bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPageCount(), bookDto.getId(), bookDto.getUserId(),
+                versions.get(0));
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Book with id " + bookDto.getId() + " was updated concurrently");
+        }
         return bookDto;
     }
 
+    /**
+     * Текущие книги пользователя с версиями читаются одним запросом (в пессимистичном режиме - под блокировкой
+     * строк), затем одним пакетом с проверкой версий обновляются только изменившиеся книги и одним пакетом
+     * вставляются новые.
+     */
+    @Override
+    public List<Integer> updateBooks(Integer userId, List<BookDto> bookDtos) {
+        final String GET_USER_BOOKS_SQL = "SELECT id, person_id, title, author, page_count, version FROM ulab_edu.book "
+                + "WHERE person_id = ?" + lockClause();
+        Map<Integer, BookDto> currentBooks = new HashMap<>();
+        Map<Integer, Long> versions = new HashMap<>();
+        jdbcTemplate.query(GET_USER_BOOKS_SQL, rs -> {
+            int id = rs.getInt("id");
+            currentBooks.put(id, new BookDto(id, rs.getInt("person_id"), rs.getString("title"),
+                    rs.getString("author"), rs.getInt("page_count")));
+            versions.put(id, rs.getLong("version"));
+        }, userId);
+        List<BookDto> changedBooks = new ArrayList<>();
+        List<BookDto> newBooks = new ArrayList<>();
+        for (BookDto bookDto : bookDtos) {
+            bookDto.setUserId(userId);
+            if (bookDto.getId() == null) {
+                newBooks.add(bookDto);
+                continue;
+            }
+            BookDto bookSource = currentBooks.get(bookDto.getId());
+            if (bookSource == null) {
+                throw new NotFoundException("No book with id: " + bookDto.getId());
+            }
+            if (!bookSource.equals(bookDto)) {
+                changedBooks.add(bookDto);
+            }
+        }
+
+        if (!changedBooks.isEmpty()) {
+            int[][] updateCounts = jdbcTemplate.batchUpdate(UPDATE_SQL, changedBooks, changedBooks.size(), (ps, book) -> {
+                ps.setString(1, book.getTitle());
+                ps.setString(2, book.getAuthor());
+                ps.setInt(3, book.getPageCount());
+                ps.setInt(4, book.getId());
+                ps.setInt(5, userId);
+                ps.setLong(6, versions.get(book.getId()));
+            });
+            for (int i = 0; i < changedBooks.size(); i++) {
+                if (updateCounts[0][i] == 0) {
+                    throw new OptimisticLockingFailureException(
+                            "Book with id " + changedBooks.get(i).getId() + " was updated concurrently");
+                }
+            }
+        }
+        createBooks(newBooks);
+        log.debug("Updated {} and created {} books of user with id: {}", changedBooks.size(), newBooks.size(), userId);
+
+        return Stream.concat(currentBooks.keySet().stream(), newBooks.stream().map(BookDto::getId))
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public Map<Integer, List<Integer>> findIdsByUserIds(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        final String GET_USERS_BOOK_IDS_SQL = "SELECT id, person_id FROM ulab_edu.book WHERE person_id IN (%s) ORDER BY id";
+        Map<Integer, List<Integer>> bookIdsByUser = new HashMap<>();
+        Object[] parameters = InClauseParameters.padded(userIds);
+        jdbcTemplate.query(GET_USERS_BOOK_IDS_SQL.formatted(InClauseParameters.placeholders(parameters.length)),
+                rs -> {
+                    bookIdsByUser.computeIfAbsent(rs.getInt("person_id"), userId -> new ArrayList<>())
+                            .add(rs.getInt("id"));
+                },
+                parameters);
+        return bookIdsByUser;
+    }
+
     @Override
-    public BookDto getBookById(Integer id) {
-        final String GET_SQL = "SELECT * FROM BOOK WHERE id = ?";
-        List<Book> query = jdbcTemplate.query(GET_SQL, new BookJdbcMapper(), id);
+    public BookDto getBookById(Integer userId, Integer id) {
+        final String GET_SQL = "SELECT * FROM ulab_edu.book WHERE id = ? AND person_id = ?";
+        List<Book> query = jdbcTemplate.query(GET_SQL, BOOK_ROW_MAPPER, id, userId);
         if (query.size() == 0) {
             throw new NotFoundException("No book with id: " + id);
         }
@@ -81,15 +176,62 @@ public class BookServiceImplTemplate implements BookService {
     }
 
     @Override
-    public void deleteBookById(Integer id) {
-        final String DELETE_SQL = "DELETE FROM BOOK WHERE id = ?";
-        jdbcTemplate.update(DELETE_SQL, id);
+    public void deleteBookById(Integer userId, Integer id) {
+        final String DELETE_SQL = "DELETE FROM ulab_edu.book WHERE id = ? AND person_id = ?";
+        jdbcTemplate.update(DELETE_SQL, id, userId);
+    }
+
+    @Override
+    public void deleteAllByUserId(Integer userId) {
+        final String DELETE_USER_BOOKS_SQL = "DELETE FROM ulab_edu.book WHERE person_id = ?";
+        jdbcTemplate.update(DELETE_USER_BOOKS_SQL, userId);
     }
 
+    /**
+     * Обходит все секции: страница книг всех пользователей.
+     */
     @Override
-    public List<BookDto> getAllBooks() {
-        final String GET_ALL_BOOK_SQL = "SELECT * FROM BOOK";
-        List<Book> bookList = jdbcTemplate.query(GET_ALL_BOOK_SQL, new BookJdbcMapper());
+    public List<BookDto> getBooksPage(Integer afterId, int limit) {
+        final String GET_BOOK_PAGE_SQL = "SELECT * FROM ulab_edu.book WHERE id > ? ORDER BY id LIMIT ?";
+        List<Book> bookList = jdbcTemplate.query(GET_BOOK_PAGE_SQL, BOOK_ROW_MAPPER, afterId, limit);
         return bookMapper.booksToBookDtos(bookList);
     }
+
+    @Override
+    public Stream<BookDto> streamAllBooks() {
+        final String GET_ALL_BOOK_SQL = "SELECT * FROM ulab_edu.book ORDER BY id";
+        return jdbcTemplate.queryForStream(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(GET_ALL_BOOK_SQL);
+                    ps.setFetchSize(STREAM_FETCH_SIZE);
+                    return ps;
+                }, BOOK_ROW_MAPPER)
+                .map(bookMapper::bookToBookDto);
+    }
+
+    @Override
+    public List<BookDto> findByUserId(Integer userId) {
+        final String GET_USER_BOOKS_SQL = "SELECT * FROM ulab_edu.book WHERE person_id = ? ORDER BY id";
+        List<Book> bookList = jdbcTemplate.query(GET_USER_BOOKS_SQL, BOOK_ROW_MAPPER, userId);
+        return bookMapper.booksToBookDtos(bookList);
+    }
+
+    @Override
+    public List<BookDto> findByUserId(Integer userId, Integer afterId, int limit) {
+        final String GET_USER_BOOK_PAGE_SQL = "SELECT * FROM ulab_edu.book WHERE person_id = ? AND id > ? ORDER BY id LIMIT ?";
+        List<Book> bookList = jdbcTemplate.query(GET_USER_BOOK_PAGE_SQL, BOOK_ROW_MAPPER, userId, afterId, limit);
+        return bookMapper.booksToBookDtos(bookList);
+    }
+
+    @Override
+    public List<Integer> findIdsByUserId(Integer userId) {
+        final String GET_USER_BOOK_IDS_SQL = "SELECT id FROM ulab_edu.book WHERE person_id = ?";
+        return jdbcTemplate.queryForList(GET_USER_BOOK_IDS_SQL, Integer.class, userId);
+    }
+
+    /**
+     * В пессимистичном режиме строки, прочитанные перед обновлением, блокируются до конца транзакции.
+     */
+    private String lockClause() {
+        return lockingProperties.isOptimistic() ? "" : " FOR UPDATE";
+    }
 }
@@ -0,0 +1,168 @@
+package com.edu.ulab.app.service.impl;
+
+import com.edu.ulab.app.config.IdempotencyProperties;
+import com.edu.ulab.app.exception.IdempotencyKeyReusedException;
+import com.edu.ulab.app.exception.RequestInProgressException;
+import com.edu.ulab.app.repository.IdempotencyKeyRepository;
+import com.edu.ulab.app.repository.IdempotencyKeyRepository.StoredResponse;
+import com.edu.ulab.app.service.IdempotencyService;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Ответы хранятся в памяти (Caffeine с размером и TTL) и, если включена таблица, в ulab_edu.idempotency_key.
+ * Ключ в таблицу пишется в одной транзакции с созданием, поэтому дубль с другого экземпляра приложения
+ * откатывается на первичном ключе и получает ответ первого запроса. Вместе с ответом хранится хэш запроса:
+ * тот же ключ с другим запросом не получает чужой ответ.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    /**
+     * Ключи длиннее не дедуплицируются: столько вмещает колонка request_id.
+     */
+    static final int MAX_KEY_LENGTH = 128;
+    /**
+     * Через сколько предлагается повторить запрос, не дождавшийся исходного.
+     */
+    static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final IdempotencyProperties properties;
+    private final IdempotencyKeyRepository keyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, StoredResponse> responses;
+    private final Map<String, RunningRequest> runningRequests = new ConcurrentHashMap<>();
+
+    public IdempotencyServiceImpl(IdempotencyProperties properties,
+                                  ObjectProvider<IdempotencyKeyRepository> keyRepository,
+                                  ObjectProvider<TransactionTemplate> transactionTemplate,
+                                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.keyRepository = keyRepository.getIfAvailable();
+        this.transactionTemplate = transactionTemplate.getIfAvailable();
+        this.meterRegistry = meterRegistry;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    @Override
+    public UserBookResponse execute(String requestId, String requestHash, Supplier<UserBookResponse> operation) {
+        if (!properties.isEnabled() || !StringUtils.hasText(requestId) || requestId.length() > MAX_KEY_LENGTH) {
+            return operation.get();
+        }
+        StoredResponse stored = responses.getIfPresent(requestId);
+        if (stored != null) {
+            return replay(requestId, requestHash, stored, "memory");
+        }
+
+        RunningRequest request = new RunningRequest(requestHash, new CompletableFuture<>());
+        RunningRequest running = runningRequests.putIfAbsent(requestId, request);
+        if (running != null) {
+            checkRequestHash(requestId, requestHash, running.requestHash());
+            return replay(requestId, requestHash, new StoredResponse(await(requestId, running), requestHash), "in_flight");
+        }
+        try {
+            // ответ мог появиться между проверкой кэша и регистрацией запроса
+            stored = responses.getIfPresent(requestId);
+            if (stored != null) {
+                return replay(requestId, requestHash, stored, "memory");
+            }
+            UserBookResponse response = keyRepository == null
+                    ? operation.get()
+                    : executeWithStoredKey(requestId, requestHash, operation);
+            responses.put(requestId, new StoredResponse(response, requestHash));
+            request.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            request.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            runningRequests.remove(requestId, request);
+        }
+    }
+
+    private UserBookResponse executeWithStoredKey(String requestId, String requestHash,
+                                                  Supplier<UserBookResponse> operation) {
+        Instant expiredBefore = Instant.now().minus(properties.getTtl());
+        Optional<StoredResponse> stored = keyRepository.findResponse(requestId, expiredBefore);
+        if (stored.isPresent()) {
+            return replay(requestId, requestHash, stored.get(), "table");
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                UserBookResponse response = operation.get();
+                keyRepository.insert(requestId, requestHash, response, expiredBefore);
+                return response;
+            });
+        } catch (DuplicateKeyException e) {
+            // тот же ключ записал другой экземпляр, наша транзакция откатилась целиком
+            return keyRepository.findResponse(requestId, expiredBefore)
+                    .map(response -> replay(requestId, requestHash, response, "table"))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private UserBookResponse replay(String requestId, String requestHash, StoredResponse stored, String tier) {
+        checkRequestHash(requestId, requestHash, stored.requestHash());
+        UserBookResponse response = stored.response();
+        log.info("Replayed create request {} for user {} from {}", requestId, response.getUserId(), tier);
+        meterRegistry.counter(REPLAYS_METRIC, "tier", tier).increment();
+        return response;
+    }
+
+    /**
+     * Хэш null у ключей в таблице, записанных до появления колонки request_hash: такие не сверяются.
+     */
+    private static void checkRequestHash(String requestId, String requestHash, String storedHash) {
+        if (storedHash != null && !Objects.equals(storedHash, requestHash)) {
+            throw new IdempotencyKeyReusedException("Request id " + requestId + " was already used for another request");
+        }
+    }
+
+    /**
+     * Ожидание повтора, пришедшего во время выполнения исходного запроса, не дольше app.idempotency.in-flight-timeout;
+     * ошибка исходного запроса достаётся и повтору, при этом ключ освобождается и следующий повтор выполнится заново.
+     */
+    private UserBookResponse await(String requestId, RunningRequest running) {
+        Duration timeout = properties.getInFlightTimeout();
+        try {
+            return running.response().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RequestInProgressException("Request " + requestId + " is still in progress", RETRY_AFTER);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestInProgressException("Request " + requestId + " is still in progress", RETRY_AFTER);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record RunningRequest(String requestHash, CompletableFuture<UserBookResponse> response) {
+    }
+}
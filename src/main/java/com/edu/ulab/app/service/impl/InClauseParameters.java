@@ -0,0 +1,31 @@
+package com.edu.ulab.app.service.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Параметры IN (...) для JdbcTemplate. Число параметров округляется вверх до степени двойки
+ * повтором последнего значения, как hibernate.query.in_clause_parameter_padding: у запроса
+ * остаётся несколько вариантов текста, и подготовленные на сервере выражения переиспользуются.
+ */
+final class InClauseParameters {
+
+    private InClauseParameters() {
+    }
+
+    static Object[] padded(Collection<?> values) {
+        Object[] parameters = values.toArray();
+        int size = Integer.highestOneBit(Math.max(1, parameters.length - 1)) << 1;
+        if (parameters.length <= 1 || size == parameters.length) {
+            return parameters;
+        }
+        Object[] padded = Arrays.copyOf(parameters, size);
+        Arrays.fill(padded, parameters.length, size, parameters[parameters.length - 1]);
+        return padded;
+    }
+
+    static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.edu.ulab.app.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Выдаёт идентификаторы из последовательности sequence блоками по {@link #ALLOCATION_SIZE}
+ * так же, как legacy hi/lo оптимизатор Hibernate для генератора sequence в сущностях,
+ * поэтому идентификаторы JdbcTemplate и JPA не пересекаются.
+ * Остаток текущего блока хранится в памяти, так что обращение к последовательности
+ * нужно один раз на {@link #ALLOCATION_SIZE} идентификаторов.
+ * Блокировка - {@link ReentrantLock}, а не synchronized: запрос к базе под монитором
+ * закрепил бы виртуальный поток за потоком-носителем.
+ */
+@Component
+@ConditionalOnProperty(name = "app.persistence.backend", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcSequenceIdGenerator {
+    /**
+     * Должен совпадать с allocationSize генератора sequence в сущностях.
+     */
+    private static final int ALLOCATION_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Lock lock = new ReentrantLock();
+
+    private int nextId;
+    private int blockEnd;
+
+    public Integer nextId() {
+        return nextIds(1).get(0);
+    }
+
+    public List<Integer> nextIds(int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            return allocate(count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Integer> allocate(int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        while (ids.size() < count && nextId < blockEnd) {
+            ids.add(nextId++);
+        }
+        int missing = count - ids.size();
+        if (missing == 0) {
+            return ids;
+        }
+
+        final String NEXT_ID_BLOCKS_SQL = "SELECT nextval('sequence') FROM generate_series(1, ?)";
+        int blockCount = (missing + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        List<Integer> idBlocks = jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Integer.class, blockCount);
+        for (Integer idBlock : idBlocks) {
+            nextId = idBlock * ALLOCATION_SIZE;
+            blockEnd = nextId + ALLOCATION_SIZE;
+            while (ids.size() < count && nextId < blockEnd) {
+                ids.add(nextId++);
+            }
+        }
+        return ids;
+    }
+}
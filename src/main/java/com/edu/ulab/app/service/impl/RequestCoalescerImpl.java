@@ -0,0 +1,95 @@
+package com.edu.ulab.app.service.impl;
+
+import com.edu.ulab.app.config.CoalescingProperties;
+import com.edu.ulab.app.service.RequestCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Выполняющиеся загрузки хранятся в {@link ConcurrentHashMap}: регистрация через putIfAbsent
+ * без общей блокировки, поэтому разные ключи друг другу не мешают.
+ * Если загрузка не уложилась в app.cache.coalescing.timeout, ожидающий загружает сам,
+ * а не держит поток запроса до её окончания.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RequestCoalescerImpl implements RequestCoalescer {
+    private final CoalescingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Flight, CompletableFuture<Object>> runningLoads = new ConcurrentHashMap<>();
+
+    @Override
+    public <V> V execute(String operation, Object key, Supplier<V> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        Flight flight = new Flight(operation, key);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = runningLoads.putIfAbsent(flight, load);
+        if (running != null) {
+            return await(flight, running, loader);
+        }
+        try {
+            V value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            runningLoads.remove(flight, load);
+        }
+    }
+
+    @Override
+    public void detach(String operation, Object key) {
+        if (runningLoads.remove(new Flight(operation, key)) != null) {
+            log.debug("Detached running load {} of {}", operation, key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V await(Flight flight, CompletableFuture<Object> running, Supplier<V> loader) {
+        try {
+            V value = (V) running.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            recordCoalesced(flight, "shared");
+            return value;
+        } catch (ExecutionException e) {
+            recordCoalesced(flight, "shared");
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Load {} of {} is running longer than {}, loading again",
+                    flight.operation(), flight.key(), properties.getTimeout());
+            recordCoalesced(flight, "timeout");
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for load " + flight.operation()
+                    + " of " + flight.key(), e);
+        }
+    }
+
+    private void recordCoalesced(Flight flight, String outcome) {
+        meterRegistry.counter(COALESCED_METRIC, "operation", flight.operation(), "outcome", outcome).increment();
+    }
+
+    private record Flight(String operation, Object key) {
+    }
+}
@@ -1,52 +1,81 @@
 package com.edu.ulab.app.service.impl;
 
+import com.edu.ulab.app.config.LockingProperties;
+import com.edu.ulab.app.dto.UserBookRowDto;
 import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.entity.Person;
 import com.edu.ulab.app.exception.NotFoundException;
 import com.edu.ulab.app.mapper.UserMapper;
 import com.edu.ulab.app.repository.UserRepository;
 import com.edu.ulab.app.service.UserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "app.persistence.backend", havingValue = "jpa", matchIfMissing = true)
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final LockingProperties lockingProperties;
 
     public UserServiceImpl(UserRepository userRepository,
-                           UserMapper userMapper) {
+                           UserMapper userMapper,
+                           LockingProperties lockingProperties) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
+        this.lockingProperties = lockingProperties;
     }
 
     @Override
     public UserDto createUser(UserDto userDto) {
         Person user = userMapper.userDtoToPerson(userDto);
-        log.info("Mapped user: {}", user);
         Person savedUser = userRepository.save(user);
-        log.info("Saved user: {}", savedUser);
+        log.debug("Saved user: {}", savedUser.getId());
         return userMapper.personToUserDto(savedUser);
     }
 
+    @Override
+    @Transactional
+    public List<UserDto> createUsers(List<UserDto> userDtos) {
+        List<Person> users = userDtos.stream()
+                .map(userMapper::userDtoToPerson)
+                .toList();
+        List<UserDto> savedUsers = new ArrayList<>(users.size());
+        userRepository.saveAll(users).forEach(user -> savedUsers.add(userMapper.personToUserDto(user)));
+        log.debug("Saved {} users", savedUsers.size());
+        return savedUsers;
+    }
+
+    /**
+     * В пессимистичном режиме строка пользователя блокируется до конца транзакции и сериализует
+     * обновления его книг, в оптимистичном конфликт обнаруживается по версии при записи.
+     */
     @Override
     public UserDto updateUser(UserDto userDto) {
         Person user = userMapper.userDtoToPerson(userDto);
-        log.info("Mapped user: {}", user);
 
-        Person personSource = userRepository.findByIdForUpdate(user.getId())
+        Person personSource = (lockingProperties.isOptimistic()
+                ? userRepository.findById(user.getId())
+                : userRepository.findByIdForUpdate(user.getId()))
                 .orElseThrow(() -> new NotFoundException("No user with id: " + user.getId()));
-        log.info("Check user in database: {}", personSource);
 
         personSource.setFullName(user.getFullName());
         personSource.setAge(user.getAge());
         personSource.setTitle(user.getTitle());
-        log.info("Update user: {}", personSource);
 
         Person savedUser = userRepository.save(personSource);
-        log.info("Saved user: {}", savedUser);
+        log.debug("Saved user: {}", savedUser.getId());
 
         return userMapper.personToUserDto(savedUser);
     }
@@ -56,14 +85,44 @@ public class UserServiceImpl implements UserService {
         Person person = userRepository
                 .findById(id)
                 .orElseThrow(() -> new NotFoundException("No user with id: " + id));
-        log.info("User found with id : {}", id);
+        log.debug("User found with id : {}", id);
 
         return userMapper.personToUserDto(person);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public UserWithBooksDto getUserWithBooksById(Integer id) {
+        Person person = userRepository
+                .findWithBooksById(id)
+                .orElseThrow(() -> new NotFoundException("No user with id: " + id));
+        log.debug("User with books found with id : {}", id);
+
+        UserWithBooksDto userWithBooks = new UserWithBooksDto();
+        userWithBooks.setUser(userMapper.personToUserDto(person));
+        userWithBooks.setBookIdList(person.getBookSet()
+                .stream()
+                .map(Book::getId)
+                .sorted()
+                .toList());
+        return userWithBooks;
+    }
+
+    @Override
+    public List<UserDto> getUsersByIds(Collection<Integer> ids) {
+        List<UserDto> users = new ArrayList<>(ids.size());
+        userRepository.findAllById(ids).forEach(user -> users.add(userMapper.personToUserDto(user)));
+        return users;
+    }
+
     @Override
     public void deleteUserById(Integer id) {
         userRepository.deleteById(id);
-        log.info("Delete user with id: {}", id);
+        log.debug("Delete user with id: {}", id);
+    }
+
+    @Override
+    public Stream<UserBookRowDto> streamUsersWithBooks() {
+        return userRepository.streamAllWithBooks();
     }
 }
@@ -0,0 +1,106 @@
+package com.edu.ulab.app.service.impl;
+
+import com.edu.ulab.app.dto.UserBookRowDto;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.storage.Storage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.persistence.backend", havingValue = "memory")
+@RequiredArgsConstructor
+public class UserServiceImplStorage implements UserService {
+    private final Storage storage;
+
+    private final UserMapper userMapper;
+
+    @Override
+    public UserDto createUser(UserDto userDto) {
+        Person savedUser = storage.savePerson(userMapper.userDtoToPerson(userDto));
+        log.debug("Saved user: {}", savedUser.getId());
+        return userMapper.personToUserDto(savedUser);
+    }
+
+    @Override
+    public List<UserDto> createUsers(List<UserDto> userDtos) {
+        List<UserDto> savedUsers = userDtos.stream()
+                .map(userMapper::userDtoToPerson)
+                .map(storage::savePerson)
+                .map(userMapper::personToUserDto)
+                .toList();
+        log.debug("Saved {} users", savedUsers.size());
+        return savedUsers;
+    }
+
+    @Override
+    public UserDto updateUser(UserDto userDto) {
+        Person personSource = storage.findPersonById(userDto.getId())
+                .orElseThrow(() -> new NotFoundException("No user with id: " + userDto.getId()));
+
+        // Хранимый пользователь виден другим потокам, поэтому изменения записываются в копию
+        Person updatedPerson = userMapper.userDtoToPerson(userDto);
+        updatedPerson.setVersion(personSource.getVersion());
+        storage.replacePerson(updatedPerson);
+        log.debug("Update user: {}", updatedPerson.getId());
+
+        return userMapper.personToUserDto(updatedPerson);
+    }
+
+    @Override
+    public UserDto getUserById(Integer id) {
+        Person person = storage.findPersonById(id)
+                .orElseThrow(() -> new NotFoundException("No user with id: " + id));
+        return userMapper.personToUserDto(person);
+    }
+
+    @Override
+    public UserWithBooksDto getUserWithBooksById(Integer id) {
+        UserWithBooksDto userWithBooks = new UserWithBooksDto();
+        userWithBooks.setUser(getUserById(id));
+        userWithBooks.setBookIdList(storage.findBookIdsByPersonId(id));
+        return userWithBooks;
+    }
+
+    @Override
+    public List<UserDto> getUsersByIds(Collection<Integer> ids) {
+        return ids.stream()
+                .map(storage::findPersonById)
+                .flatMap(Optional::stream)
+                .map(userMapper::personToUserDto)
+                .toList();
+    }
+
+    @Override
+    public void deleteUserById(Integer id) {
+        storage.deletePersonById(id);
+        log.debug("Delete user with id: {}", id);
+    }
+
+    @Override
+    public Stream<UserBookRowDto> streamUsersWithBooks() {
+        return storage.streamPersons().flatMap(person -> {
+            List<Book> books = storage.findBooksByPersonId(person.getId());
+            if (books.isEmpty()) {
+                return Stream.of(new UserBookRowDto(person.getId(), person.getFullName(), person.getTitle(),
+                        person.getAge(), null, null, null, null));
+            }
+            return books.stream().map(book -> new UserBookRowDto(person.getId(), person.getFullName(),
+                    person.getTitle(), person.getAge(), book.getId(), book.getTitle(), book.getAuthor(),
+                    book.getPageCount()));
+        });
+    }
+}
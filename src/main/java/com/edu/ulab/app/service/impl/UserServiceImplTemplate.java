@@ -1,6 +1,9 @@
 package com.edu.ulab.app.service.impl;
 
+import com.edu.ulab.app.config.LockingProperties;
+import com.edu.ulab.app.dto.UserBookRowDto;
 import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
 import com.edu.ulab.app.entity.Person;
 import com.edu.ulab.app.exception.NotFoundException;
 import com.edu.ulab.app.mapper.PersonJdbcMapper;
@@ -8,56 +11,93 @@ import com.edu.ulab.app.mapper.UserMapper;
 import com.edu.ulab.app.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.PreparedStatementCreator;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "app.persistence.backend", havingValue = "jdbc")
 @RequiredArgsConstructor
 public class UserServiceImplTemplate implements UserService {
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final PersonJdbcMapper PERSON_ROW_MAPPER = new PersonJdbcMapper();
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final JdbcSequenceIdGenerator idGenerator;
+
     private final UserMapper userMapper;
 
+    private final LockingProperties lockingProperties;
+
     @Override
     public UserDto createUser(UserDto userDto) {
 
-        final String INSERT_SQL = "INSERT INTO PERSON(FULL_NAME, TITLE, AGE) VALUES (?,?,?)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbcTemplate.update(
-                connection -> {
-                    PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[]{"id"});
-                    ps.setString(1, userDto.getFullName());
-                    ps.setString(2, userDto.getTitle());
-                    ps.setLong(3, userDto.getAge());
-                    return ps;
-                }, keyHolder);
-
-        userDto.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+        final String INSERT_SQL = "INSERT INTO ulab_edu.person(id, full_name, title, age, version) VALUES (?,?,?,?,0)";
+        userDto.setId(idGenerator.nextId());
+        jdbcTemplate.update(INSERT_SQL, userDto.getId(), userDto.getFullName(), userDto.getTitle(), userDto.getAge());
         return userDto;
     }
 
+    @Override
+    public List<UserDto> createUsers(List<UserDto> userDtos) {
+        if (userDtos.isEmpty()) {
+            return userDtos;
+        }
+        final String INSERT_SQL = "INSERT INTO ulab_edu.person(id, full_name, title, age, version) VALUES (?,?,?,?,0)";
+
+        List<Integer> ids = idGenerator.nextIds(userDtos.size());
+        for (int i = 0; i < userDtos.size(); i++) {
+            userDtos.get(i).setId(ids.get(i));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, userDtos, userDtos.size(), (ps, user) -> {
+            ps.setInt(1, user.getId());
+            ps.setString(2, user.getFullName());
+            ps.setString(3, user.getTitle());
+            ps.setInt(4, user.getAge());
+        });
+        log.debug("Saved {} users", userDtos.size());
+        return userDtos;
+    }
+
+    /**
+     * Версия строки читается в той же транзакции, в пессимистичном режиме - под блокировкой строки,
+     * и проверяется при записи: пользователя, изменённого после чтения, не перезаписываем.
+     */
     @Override
     public UserDto updateUser(UserDto userDto) {
-        final String UPDATE_SQL = "UPDATE PERSON SET FULL_NAME = ?, TITLE = ?, AGE = ? WHERE id = ?";
-        jdbcTemplate.update(UPDATE_SQL, userDto.getFullName(), userDto.getTitle(), userDto.getAge(), userDto.getId());
+        final String GET_VERSION_SQL = "SELECT version FROM ulab_edu.person WHERE id = ?"
+                + (lockingProperties.isOptimistic() ? "" : " FOR UPDATE");
+        List<Long> versions = jdbcTemplate.queryForList(GET_VERSION_SQL, Long.class, userDto.getId());
+        if (versions.isEmpty()) {
+            throw new NotFoundException("No user with id: " + userDto.getId());
+        }
+
+        final String UPDATE_SQL = "UPDATE ulab_edu.person SET full_name = ?, title = ?, age = ?, version = version + 1 "
+                + "WHERE id = ? AND version = ?";
+        int updated = jdbcTemplate.update(UPDATE_SQL,
+                userDto.getFullName(), userDto.getTitle(), userDto.getAge(), userDto.getId(), versions.get(0));
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("User with id " + userDto.getId() + " was updated concurrently");
+        }
 
         return userDto;
     }
 
     @Override
     public UserDto getUserById(Integer id) {
-        final String GET_SQL = "SELECT * FROM PERSON WHERE id = ?";
-        List<Person> query = jdbcTemplate.query(GET_SQL, new PersonJdbcMapper(), id);
+        final String GET_SQL = "SELECT * FROM ulab_edu.person WHERE id = ?";
+        List<Person> query = jdbcTemplate.query(GET_SQL, PERSON_ROW_MAPPER, id);
         if (query.size() == 0) {
             throw new NotFoundException("No user with id: " + id);
         }
@@ -65,9 +105,71 @@ public class UserServiceImplTemplate implements UserService {
         return userMapper.personToUserDto(query.get(0));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public UserWithBooksDto getUserWithBooksById(Integer id) {
+        final String GET_WITH_BOOKS_SQL = "SELECT p.*, b.id AS book_id FROM ulab_edu.person p "
+                + "LEFT JOIN ulab_edu.book b ON b.person_id = p.id WHERE p.id = ? ORDER BY b.id";
+        UserWithBooksDto userWithBooks = jdbcTemplate.query(GET_WITH_BOOKS_SQL, rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            UserWithBooksDto result = new UserWithBooksDto();
+            result.setUser(userMapper.personToUserDto(PERSON_ROW_MAPPER.mapRow(rs, 0)));
+            List<Integer> bookIdList = new ArrayList<>();
+            do {
+                int bookId = rs.getInt("book_id");
+                if (!rs.wasNull()) {
+                    bookIdList.add(bookId);
+                }
+            } while (rs.next());
+            result.setBookIdList(bookIdList);
+            return result;
+        }, id);
+        if (userWithBooks == null) {
+            throw new NotFoundException("No user with id: " + id);
+        }
+        return userWithBooks;
+    }
+
+    @Override
+    public List<UserDto> getUsersByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        final String GET_USERS_SQL = "SELECT * FROM ulab_edu.person WHERE id IN (%s)";
+        Object[] parameters = InClauseParameters.padded(ids);
+        List<Person> users = jdbcTemplate.query(
+                GET_USERS_SQL.formatted(InClauseParameters.placeholders(parameters.length)),
+                PERSON_ROW_MAPPER, parameters);
+        return users.stream()
+                .map(userMapper::personToUserDto)
+                .toList();
+    }
+
     @Override
     public void deleteUserById(Integer id) {
-        final String DELETE_SQL = "DELETE FROM PERSON WHERE id = ?";
+        final String DELETE_SQL = "DELETE FROM ulab_edu.person WHERE id = ?";
         jdbcTemplate.update(DELETE_SQL, id);
     }
+
+    @Override
+    public Stream<UserBookRowDto> streamUsersWithBooks() {
+        final String GET_ALL_WITH_BOOKS_SQL = "SELECT p.id, p.full_name, p.title, p.age, "
+                + "b.id AS book_id, b.title AS book_title, b.author, b.page_count FROM ulab_edu.person p "
+                + "LEFT JOIN ulab_edu.book b ON b.person_id = p.id ORDER BY p.id, b.id";
+        return jdbcTemplate.queryForStream(connection -> {
+            PreparedStatement ps = connection.prepareStatement(GET_ALL_WITH_BOOKS_SQL);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (rs, rowNum) -> new UserBookRowDto(
+                rs.getInt("id"),
+                rs.getString("full_name"),
+                rs.getString("title"),
+                rs.getInt("age"),
+                rs.getObject("book_id", Integer.class),
+                rs.getString("book_title"),
+                rs.getString("author"),
+                rs.getObject("page_count", Integer.class)));
+    }
 }
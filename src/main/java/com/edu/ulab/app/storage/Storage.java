@@ -1,11 +1,237 @@
 package com.edu.ulab.app.storage;
 
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.exception.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище пользователей и книг в памяти.
+ * <p>
+ * Первичные индексы - по идентификатору, вторичный - идентификаторы книг пользователя,
+ * поэтому выборка и каскадное удаление книг пользователя не зависят от общего числа книг.
+ * Индексы книг упорядочены, что позволяет постраничную выборку по идентификатору.
+ * Запись книги и удаление пользователя выполняются внутри compute по записи пользователя
+ * во вторичном индексе: ConcurrentHashMap блокирует запись на время функции, поэтому книга
+ * не попадёт в индекс пользователя, удалённого параллельно.
+ * Индекс пользователя меняется только внутри compute по нему и сверяется с владельцем книги
+ * в основном индексе: при переносе книги её id убирается у прежнего владельца в compute по нему,
+ * если книга к этому моменту не вернулась обратно. Вложенный compute ConcurrentHashMap не допускает.
+ * Хранимые объекты не изменяются на месте - обновление заменяет их копией.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.persistence.backend", havingValue = "memory")
 public class Storage {
-    //todo создать хранилище в котором будут содержаться данные
-    // сделать абстракции через которые можно будет производить операции с хранилищем
-    // продумать логику поиска и сохранения
-    // продумать возможные ошибки
-    // учесть, что при сохранеии юзера или книги, должен генерироваться идентификатор
-    // продумать что у узера может быть много книг и нужно создать эту связь
-    // так же учесть, что методы хранилища принимают друго тип данных - учесть это в абстракции
+    private final ConcurrentNavigableMap<Integer, Person> persons = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Integer, Book> books = new ConcurrentSkipListMap<>();
+    private final Map<Integer, NavigableSet<Integer>> personBookIds = new ConcurrentHashMap<>();
+    private final AtomicInteger idGenerator = new AtomicInteger();
+
+    public Person savePerson(Person person) {
+        person.setId(nextId(person.getId()));
+        persons.put(person.getId(), person);
+        return person;
+    }
+
+    /**
+     * Заменяет существующего пользователя, нового не создаёт.
+     */
+    public Person replacePerson(Person person) {
+        if (persons.replace(person.getId(), person) == null) {
+            throw new NotFoundException("No user with id: " + person.getId());
+        }
+        return person;
+    }
+
+    public Optional<Person> findPersonById(Integer id) {
+        return Optional.ofNullable(persons.get(id));
+    }
+
+    public Stream<Person> streamPersons() {
+        return persons.values().stream();
+    }
+
+    public void deletePersonById(Integer id) {
+        personBookIds.compute(id, (key, bookIds) -> {
+            persons.remove(id);
+            if (bookIds != null) {
+                bookIds.forEach(bookId -> removeOwnedBook(id, bookId));
+                log.debug("Deleted {} books of user with id: {}", bookIds.size(), id);
+            }
+            return null;
+        });
+    }
+
+    public Book saveBook(Book book) {
+        Integer personId = Objects.requireNonNull(book.getPerson(), "Book without person").getId();
+        AtomicReference<Book> previous = new AtomicReference<>();
+        personBookIds.compute(personId, (key, bookIds) -> {
+            if (!persons.containsKey(personId)) {
+                throw new NotFoundException("No user with id: " + personId);
+            }
+            book.setId(nextId(book.getId()));
+            NavigableSet<Integer> ids = bookIds == null ? new ConcurrentSkipListSet<>() : bookIds;
+            previous.set(books.put(book.getId(), book));
+            ids.add(book.getId());
+            return ids;
+        });
+        Book replaced = previous.get();
+        if (replaced != null && !isOwnedBy(replaced, personId)) {
+            removeFromIndex(replaced.getPerson().getId(), book.getId());
+        }
+        return book;
+    }
+
+    /**
+     * Заменяет существующую книгу того же пользователя, новой не создаёт и владельца не меняет.
+     */
+    public Book replaceBook(Book book) {
+        Integer personId = Objects.requireNonNull(book.getPerson(), "Book without person").getId();
+        personBookIds.compute(personId, (key, bookIds) -> {
+            Book stored = books.computeIfPresent(book.getId(),
+                    (id, current) -> isOwnedBy(current, personId) ? book : current);
+            if (stored != book) {
+                throw new NotFoundException("No book with id: " + book.getId());
+            }
+            return bookIds;
+        });
+        return book;
+    }
+
+    public Optional<Book> findBookById(Integer id) {
+        return Optional.ofNullable(books.get(id));
+    }
+
+    public List<Integer> findBookIdsByPersonId(Integer personId) {
+        NavigableSet<Integer> bookIds = personBookIds.get(personId);
+        return bookIds == null ? List.of() : List.copyOf(bookIds);
+    }
+
+    public List<Book> findBooksByPersonId(Integer personId) {
+        return findBookIdsByPersonId(personId)
+                .stream()
+                .map(books::get)
+                .filter(book -> book != null && isOwnedBy(book, personId))
+                .toList();
+    }
+
+    public List<Book> findBooksByPersonId(Integer personId, Integer afterId, int limit) {
+        NavigableSet<Integer> bookIds = personBookIds.get(personId);
+        if (bookIds == null) {
+            return List.of();
+        }
+        return bookIds.tailSet(afterId, false)
+                .stream()
+                .map(books::get)
+                .filter(book -> book != null && isOwnedBy(book, personId))
+                .limit(limit)
+                .toList();
+    }
+
+    public List<Book> findBooksAfter(Integer afterId, int limit) {
+        return books.tailMap(afterId, false)
+                .values()
+                .stream()
+                .limit(limit)
+                .toList();
+    }
+
+    public Stream<Book> streamBooks() {
+        return books.values().stream();
+    }
+
+    /**
+     * Удаляет книгу в compute по её владельцу. Если книгу перенесли или заменили между чтением
+     * и блокировкой, попытка повторяется с актуальной записью.
+     */
+    public void deleteBookById(Integer id) {
+        Book book;
+        while ((book = books.get(id)) != null) {
+            Book expected = book;
+            AtomicBoolean removed = new AtomicBoolean();
+            personBookIds.compute(book.getPerson().getId(), (key, bookIds) -> {
+                if (books.remove(id, expected)) {
+                    removed.set(true);
+                    if (bookIds != null) {
+                        bookIds.remove(id);
+                    }
+                }
+                return bookIds;
+            });
+            if (removed.get()) {
+                return;
+            }
+        }
+    }
+
+    public int deleteBooksByPersonId(Integer personId) {
+        AtomicInteger deleted = new AtomicInteger();
+        personBookIds.computeIfPresent(personId, (key, bookIds) -> {
+            bookIds.forEach(bookId -> {
+                if (removeOwnedBook(personId, bookId)) {
+                    deleted.incrementAndGet();
+                }
+            });
+            return null;
+        });
+        log.debug("Deleted {} books of user with id: {}", deleted.get(), personId);
+        return deleted.get();
+    }
+
+    /**
+     * Явно заданный идентификатор сдвигает генератор, чтобы следующий сгенерированный его не перезаписал.
+     */
+    private Integer nextId(Integer id) {
+        if (id == null) {
+            return idGenerator.incrementAndGet();
+        }
+        idGenerator.accumulateAndGet(id, Math::max);
+        return id;
+    }
+
+    /**
+     * Убирает книгу из индекса прежнего владельца, если она не вернулась к нему параллельно.
+     */
+    private void removeFromIndex(Integer personId, Integer bookId) {
+        personBookIds.computeIfPresent(personId, (key, bookIds) -> {
+            Book current = books.get(bookId);
+            if (current == null || !isOwnedBy(current, personId)) {
+                bookIds.remove(bookId);
+            }
+            return bookIds;
+        });
+    }
+
+    /**
+     * Книга из индекса пользователя могла быть перенесена к другому, такую не удаляем.
+     */
+    private boolean removeOwnedBook(Integer personId, Integer bookId) {
+        AtomicBoolean removed = new AtomicBoolean();
+        books.computeIfPresent(bookId, (id, book) -> {
+            removed.set(isOwnedBy(book, personId));
+            return removed.get() ? null : book;
+        });
+        return removed.get();
+    }
+
+    private static boolean isOwnedBy(Book book, Integer personId) {
+        return personId.equals(book.getPerson().getId());
+    }
 }
@@ -0,0 +1,65 @@
+package com.edu.ulab.app.web;
+
+import com.edu.ulab.app.facade.ReactiveUserDataFacade;
+import com.edu.ulab.app.web.constant.WebConstant;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.BookResponse;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.Pattern;
+
+import static com.edu.ulab.app.web.constant.WebConstant.REQUEST_ID_PATTERN;
+import static com.edu.ulab.app.web.constant.WebConstant.RQID;
+
+/**
+ * Неблокирующий вариант {@link UserController} на R2DBC: поток запроса освобождается
+ * на время обращения к базе, ответ отправляется асинхронно.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@RequestMapping(value = WebConstant.VERSION_URL + "/reactive/user",
+        produces = MediaType.APPLICATION_JSON_VALUE)
+public class ReactiveUserController {
+    private final ReactiveUserDataFacade reactiveUserDataFacade;
+
+    public ReactiveUserController(ReactiveUserDataFacade reactiveUserDataFacade) {
+        this.reactiveUserDataFacade = reactiveUserDataFacade;
+    }
+
+    @PostMapping(value = "/create")
+    @Operation(summary = "Create user book row without blocking the request thread.")
+    public Mono<UserBookResponse> createUserWithBooks(@RequestBody UserBookRequest request,
+                                                      @RequestHeader(RQID) @Pattern(regexp = REQUEST_ID_PATTERN) final String requestId) {
+        return reactiveUserDataFacade.createUserWithBooks(request);
+    }
+
+    @PutMapping(value = "/update")
+    public Mono<UserBookResponse> updateUserWithBooks(@RequestBody UserBookRequest request) {
+        return reactiveUserDataFacade.updateUserWithBooks(request);
+    }
+
+    @GetMapping(value = "/get/{userId}")
+    public Mono<UserBookResponse> getUserWithBooks(@PathVariable Integer userId) {
+        return reactiveUserDataFacade.getUserWithBooks(userId);
+    }
+
+    @GetMapping(value = "/get/{userId}/books", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream user books as NDJSON, one book per line.")
+    public Flux<BookResponse> getUserBooks(@PathVariable Integer userId) {
+        return reactiveUserDataFacade.getUserBooks(userId);
+    }
+
+    @DeleteMapping(value = "/delete/{userId}")
+    public Mono<Void> deleteUserWithBooks(@PathVariable Integer userId) {
+        log.debug("Reactive delete user and his books: userId {}", userId);
+        return reactiveUserDataFacade.deleteUserWithBooks(userId);
+    }
+}
@@ -1,18 +1,35 @@
 package com.edu.ulab.app.web;
 
+import com.edu.ulab.app.facade.UserBatchFacade;
 import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.facade.UserExportFacade;
+import com.edu.ulab.app.facade.UserImportFacade;
+import com.edu.ulab.app.service.IdempotencyService;
+import com.edu.ulab.app.web.constant.ExportFormat;
 import com.edu.ulab.app.web.constant.WebConstant;
 import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.BookPageResponse;
+import com.edu.ulab.app.web.response.ImportResponse;
 import com.edu.ulab.app.web.response.UserBookResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.constraints.Pattern;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 import static com.edu.ulab.app.web.constant.WebConstant.REQUEST_ID_PATTERN;
 import static com.edu.ulab.app.web.constant.WebConstant.RQID;
@@ -23,41 +40,117 @@ import static com.edu.ulab.app.web.constant.WebConstant.RQID;
         produces = MediaType.APPLICATION_JSON_VALUE)
 public class UserController {
     private final UserDataFacade userDataFacade;
+    private final UserImportFacade userImportFacade;
+    private final UserExportFacade userExportFacade;
+    private final UserBatchFacade userBatchFacade;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserDataFacade userDataFacade) {
+    public UserController(UserDataFacade userDataFacade,
+                          UserImportFacade userImportFacade,
+                          UserExportFacade userExportFacade,
+                          UserBatchFacade userBatchFacade,
+                          IdempotencyService idempotencyService,
+                          ObjectMapper objectMapper) {
         this.userDataFacade = userDataFacade;
+        this.userImportFacade = userImportFacade;
+        this.userExportFacade = userExportFacade;
+        this.userBatchFacade = userBatchFacade;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping(value = "/create")
-    @Operation(summary = "Create user book row.",
+    @Operation(summary = "Create user book row. Repeated rqid returns the original response without creating again, "
+            + "rqid reused with another body is rejected with 422, a repeat of a request still in progress gets 409.",
             responses = {
                     @ApiResponse(description = "User book",
                             content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                                     schema = @Schema(implementation = UserBookResponse.class)))})
     public UserBookResponse createUserWithBooks(@RequestBody UserBookRequest request,
-                                                @RequestHeader(RQID) @Pattern(regexp = REQUEST_ID_PATTERN) final String requestId) {
-        UserBookResponse response = userDataFacade.createUserWithBooks(request);
-        log.info("Response with created user and his books: {}", response);
+                                                @RequestHeader(RQID) @Pattern(regexp = REQUEST_ID_PATTERN) final String requestId,
+                                                HttpServletRequest httpRequest) throws JsonProcessingException {
+        // тело хэшируется после разбора: запросы, отличающиеся только форматированием JSON, совпадают
+        String requestHash = IdempotencyService.requestHash(httpRequest.getMethod(), httpRequest.getRequestURI(),
+                objectMapper.writeValueAsBytes(request));
+        UserBookResponse response = idempotencyService.execute(requestId, requestHash,
+                () -> userDataFacade.createUserWithBooks(request));
+        log.debug("Response with created user and his books: {}", response);
         return response;
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Import users with books from NDJSON, one user book request per line.",
+            responses = {
+                    @ApiResponse(description = "Import summary",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ImportResponse.class)))})
+    public ImportResponse importUsersWithBooks(HttpServletRequest request) throws IOException {
+        ImportResponse response = userImportFacade.importUsersWithBooks(request.getInputStream());
+        log.debug("Response with imported users: {}", response);
+        return response;
+    }
+
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @Operation(summary = "Export all users with books as NDJSON (one user per line) or CSV (one book per line).")
+    public ResponseEntity<StreamingResponseBody> exportUsersWithBooks(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        log.info("Export users and their books as {}", format);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(format.getFileName()).build().toString())
+                .body(outputStream -> userExportFacade.exportUsersWithBooks(format, outputStream));
+    }
+
     @PutMapping(value = "/update")
     public UserBookResponse updateUserWithBooks(@RequestBody UserBookRequest request) {
         UserBookResponse response = userDataFacade.updateUserWithBooks(request);
-        log.info("Response with updated user and his books: {}", response);
+        log.debug("Response with updated user and his books: {}", response);
         return response;
     }
 
     @GetMapping(value = "/get/{userId}")
     public UserBookResponse updateUserWithBooks(@PathVariable Integer userId) {
         UserBookResponse response = userDataFacade.getUserWithBooks(userId);
-        log.info("Response with user and his books: {}", response);
+        log.debug("Response with user and his books: {}", response);
+        return response;
+    }
+
+    @GetMapping(value = "/get/batch")
+    @Operation(summary = "Users with their book ids by user ids, keyed by user id. Unknown ids are skipped.")
+    public Map<Integer, UserBookResponse> getUsersWithBooks(@RequestParam List<Integer> ids) {
+        Map<Integer, UserBookResponse> response = userBatchFacade.getUsersWithBooks(ids);
+        log.debug("Response with {} users and their books", response.size());
+        return response;
+    }
+
+    /**
+     * То же, что GET /get/batch, для списков, не помещающихся в строку запроса.
+     */
+    @PostMapping(value = "/get/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Users with their book ids by a JSON array of user ids, keyed by user id.")
+    public Map<Integer, UserBookResponse> getUsersWithBooksByBody(@RequestBody List<Integer> ids) {
+        return getUsersWithBooks(ids);
+    }
+
+    @GetMapping(value = "/get/{userId}/books")
+    @Operation(summary = "User books page ordered by book id.",
+            responses = {
+                    @ApiResponse(description = "User books page",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = BookPageResponse.class)))})
+    public BookPageResponse getUserBooksPage(@PathVariable Integer userId,
+                                             @RequestParam(defaultValue = "0") Integer afterId,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        BookPageResponse response = userDataFacade.getUserBooksPage(userId, afterId, limit);
+        log.debug("Response with user books page: {}", response.getNextAfterId());
         return response;
     }
 
     @DeleteMapping(value = "/delete/{userId}")
     public void deleteUserWithBooks(@PathVariable Integer userId) {
-        log.info("Delete user and his books:  userId {}", userId);
+        log.debug("Delete user and his books:  userId {}", userId);
         userDataFacade.deleteUserWithBooks(userId);
     }
 }
@@ -0,0 +1,15 @@
+package com.edu.ulab.app.web.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON, "users.ndjson"),
+    CSV(new MediaType("text", "csv"), "users.csv");
+
+    private final MediaType mediaType;
+    private final String fileName;
+}
@@ -0,0 +1,51 @@
+package com.edu.ulab.app.web.filter;
+
+import com.edu.ulab.app.config.DataSourceProxyConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Число SQL выражений на запрос (app.request.db.statements) по тегам uri и method.
+ * Учитываются выражения, выполненные в потоке запроса.
+ */
+@Component
+@ConditionalOnProperty(name = "app.metrics.db-statements.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DbStatementMetricsFilter extends OncePerRequestFilter {
+    public static final String DB_STATEMENTS_METRIC = "app.request.db.statements";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request,
+                                    final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        QueryCountHolder.clear();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCount queryCount = QueryCountHolder.get(DataSourceProxyConfig.COUNTED_DATA_SOURCE);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(DB_STATEMENTS_METRIC)
+                    .baseUnit("statements")
+                    .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                    .tag("method", request.getMethod())
+                    .register(meterRegistry)
+                    .record(queryCount == null ? 0 : queryCount.getTotal());
+            QueryCountHolder.clear();
+        }
+    }
+}
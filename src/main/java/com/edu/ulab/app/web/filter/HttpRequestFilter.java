@@ -1,5 +1,6 @@
 package com.edu.ulab.app.web.filter;
 
+import com.edu.ulab.app.web.constant.WebConstant;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
@@ -14,17 +15,19 @@ import java.io.IOException;
 @Slf4j
 @Component
 public class HttpRequestFilter extends OncePerRequestFilter {
+    public static final String REQUEST_ID_MDC_KEY = "requestId";
+
     @Override
     protected void doFilterInternal(final HttpServletRequest request,
                                     final HttpServletResponse response,
                                     final FilterChain filterChain) throws ServletException, IOException {
-        String requestId = request.getHeader("rqid");
-        MDC.put("requestId", requestId);
-        log.info("RequestId : {}", requestId);
+        String requestId = request.getHeader(WebConstant.RQID);
+        MDC.put(REQUEST_ID_MDC_KEY, requestId);
+        log.debug("RequestId : {}", requestId);
         try {
             filterChain.doFilter(request, response);
         } finally {
-            MDC.remove("requestId");
+            MDC.remove(REQUEST_ID_MDC_KEY);
         }
     }
 }
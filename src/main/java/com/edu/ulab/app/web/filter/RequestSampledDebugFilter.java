@@ -0,0 +1,40 @@
+package com.edu.ulab.app.web.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import lombok.Getter;
+import lombok.Setter;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Включает DEBUG логи приложения для выборки запросов, не меняя уровень логгеров.
+ * Решение принимается по хэшу идентификатора запроса из MDC, который кладёт {@link HttpRequestFilter},
+ * поэтому все DEBUG события одного запроса либо пишутся целиком, либо не пишутся вовсе.
+ * Проверки log.isDebugEnabled() тоже проходят через фильтр и учитывают выборку.
+ */
+@Getter
+@Setter
+public class RequestSampledDebugFilter extends TurboFilter {
+    private static final int PERCENT = 100;
+
+    private String mdcKey = HttpRequestFilter.REQUEST_ID_MDC_KEY;
+    private String loggerPrefix = "com.edu.ulab";
+    private int samplePercent;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (samplePercent <= 0 || level.levelInt != Level.DEBUG_INT
+                || logger.getEffectiveLevel().levelInt <= Level.DEBUG_INT
+                || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        String requestId = MDC.get(mdcKey);
+        if (requestId == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return Math.floorMod(requestId.hashCode(), PERCENT) < samplePercent ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+}
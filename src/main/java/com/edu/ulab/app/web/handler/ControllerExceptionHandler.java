@@ -1,9 +1,14 @@
 package com.edu.ulab.app.web.handler;
 
+import com.edu.ulab.app.exception.BadRequestException;
+import com.edu.ulab.app.exception.IdempotencyKeyReusedException;
 import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.exception.RequestInProgressException;
 import com.edu.ulab.app.web.response.BaseWebResponse;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,6 +26,44 @@ public class ControllerExceptionHandler {
                 .body(new BaseWebResponse(createErrorMessage(exc)));
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<BaseWebResponse> handleBadRequestException(@NonNull final BadRequestException exc) {
+        log.warn(exc.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new BaseWebResponse(exc.getMessage()));
+    }
+
+    /**
+     * Конфликт версий, не разрешённый повторами: клиент может повторить запрос.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<BaseWebResponse> handleOptimisticLockingFailureException(
+            @NonNull final OptimisticLockingFailureException exc) {
+        log.warn("Concurrent modification: {}", exc.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new BaseWebResponse("Concurrent modification, retry the request"));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<BaseWebResponse> handleIdempotencyKeyReusedException(
+            @NonNull final IdempotencyKeyReusedException exc) {
+        log.warn(exc.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(new BaseWebResponse(exc.getMessage()));
+    }
+
+    /**
+     * Исходный запрос с тем же rqid не завершился за время ожидания: повтор безопасно отправить позже.
+     */
+    @ExceptionHandler(RequestInProgressException.class)
+    public ResponseEntity<BaseWebResponse> handleRequestInProgressException(
+            @NonNull final RequestInProgressException exc) {
+        log.warn(exc.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exc.getRetryAfter().toSeconds())))
+                .body(new BaseWebResponse(exc.getMessage()));
+    }
+
     private String createErrorMessage(Exception exception) {
         final String message = exception.getMessage();
         log.error(ExceptionHandlerUtils.buildErrorMessage(exception));
@@ -0,0 +1,17 @@
+package com.edu.ulab.app.web.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BookPageResponse {
+    private Integer userId;
+    private List<BookResponse> books;
+    /**
+     * Значение afterId для следующей страницы, null - если страница последняя.
+     */
+    private Integer nextAfterId;
+}
@@ -0,0 +1,14 @@
+package com.edu.ulab.app.web.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ImportResponse {
+    private long imported;
+    private long failed;
+    private List<String> errors;
+}
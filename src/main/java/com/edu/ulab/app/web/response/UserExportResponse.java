@@ -0,0 +1,15 @@
+package com.edu.ulab.app.web.response;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UserExportResponse {
+    private Integer id;
+    private String fullName;
+    private String title;
+    private Integer age;
+    private List<BookResponse> books = new ArrayList<>();
+}
@@ -0,0 +1,16 @@
+create table ulab_edu.idempotency_key
+(
+    request_id varchar(128) not null,
+    user_id    integer      not null,
+    book_ids   text         not null,
+    created_at timestamp    not null,
+    constraint pk_ulab_edu_idempotency_key_request_id primary key (request_id)
+);
+
+CREATE INDEX idx_ulab_edu_idempotency_key_created_at on ulab_edu.idempotency_key (created_at);
+
+comment on table ulab_edu.idempotency_key is 'Ответы на уже выполненные запросы создания по ключу rqid';
+comment on column ulab_edu.idempotency_key.request_id is 'Ключ идемпотентности из заголовка rqid';
+comment on column ulab_edu.idempotency_key.user_id is 'Идентификатор созданного пользователя';
+comment on column ulab_edu.idempotency_key.book_ids is 'Идентификаторы созданных книг через запятую';
+comment on column ulab_edu.idempotency_key.created_at is 'Время выполнения запроса';
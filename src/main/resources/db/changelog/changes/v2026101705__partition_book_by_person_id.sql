@@ -0,0 +1,69 @@
+--liquibase formatted sql
+
+--changeset ulab:v2026101705 dbms:postgresql
+--comment: Хэш-секции есть только в PostgreSQL; на H2 (бенчмарки) таблица остаётся обычной. Перенос онлайн: копия данных - v2026101707, подмена таблицы - v2026101708
+-- Первичный ключ секционированной таблицы обязан содержать ключ секционирования, поэтому (id, person_id)
+-- не гарантирует уникальность id по всей таблице. Уникальность обеспечивает последовательность
+-- ulab_edu.sequence (hi/lo Hibernate и JdbcSequenceIdGenerator): id книг вне неё не выдаются.
+-- Дубликаты при переносе проверяет предусловие v2026101708.
+-- Блокировки: новые таблицы и индекс создаются пустыми, book не блокируется.
+create table ulab_edu.book_partitioned
+(
+    id         integer     not null,
+    person_id  integer     not null,
+    title      varchar(50) not null,
+    author     varchar(50) not null,
+    page_count integer     not null,
+    version    bigint      not null default 0,
+    constraint pk_ulab_edu_book_partitioned_id primary key (id, person_id)
+) partition by hash (person_id);
+
+create table ulab_edu.book_p00 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 0);
+create table ulab_edu.book_p01 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 1);
+create table ulab_edu.book_p02 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 2);
+create table ulab_edu.book_p03 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 3);
+create table ulab_edu.book_p04 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 4);
+create table ulab_edu.book_p05 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 5);
+create table ulab_edu.book_p06 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 6);
+create table ulab_edu.book_p07 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 7);
+create table ulab_edu.book_p08 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 8);
+create table ulab_edu.book_p09 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 9);
+create table ulab_edu.book_p10 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 10);
+create table ulab_edu.book_p11 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 11);
+create table ulab_edu.book_p12 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 12);
+create table ulab_edu.book_p13 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 13);
+create table ulab_edu.book_p14 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 14);
+create table ulab_edu.book_p15 partition of ulab_edu.book_partitioned for values with (modulus 16, remainder 15);
+
+-- индекс строится на пустой таблице и дальше поддерживается при копировании, а не под блокировкой подмены
+CREATE INDEX idx_ulab_edu_book_partitioned_person_id_id on ulab_edu.book_partitioned (person_id, id);
+
+--changeset ulab:v2026101705-sync dbms:postgresql splitStatements:false
+--comment: Пока идёт перенос, изменения book зеркалируются в book_partitioned
+-- Блокировки: create trigger берёт SHARE ROW EXCLUSIVE на book - запись ждёт завершения
+-- текущих транзакций, чтение не блокируется. До v2026101708 каждая запись в book пишется дважды.
+create function ulab_edu.book_partitioned_sync() returns trigger
+    language plpgsql as
+$$
+begin
+    if tg_op in ('UPDATE', 'DELETE') then
+        delete from ulab_edu.book_partitioned where id = old.id and person_id = old.person_id;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+        values (new.id, new.person_id, new.title, new.author, new.page_count, new.version)
+        on conflict (id, person_id) do update
+            set title      = excluded.title,
+                author     = excluded.author,
+                page_count = excluded.page_count,
+                version    = excluded.version;
+    end if;
+    return null;
+end;
+$$;
+
+create trigger trg_ulab_edu_book_partitioned_sync
+    after insert or update or delete
+    on ulab_edu.book
+    for each row
+execute function ulab_edu.book_partitioned_sync();
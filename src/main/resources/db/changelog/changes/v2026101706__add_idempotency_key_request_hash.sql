@@ -0,0 +1,3 @@
+ALTER TABLE ulab_edu.idempotency_key ADD COLUMN request_hash varchar(64);
+
+comment on column ulab_edu.idempotency_key.request_hash is 'SHA-256 метода, пути и тела запроса; пусто у ключей, записанных до появления колонки';
@@ -0,0 +1,123 @@
+--liquibase formatted sql
+
+-- Копирование book в book_partitioned по одной секции на changeset, каждая в своей транзакции.
+-- Блокировки: ACCESS SHARE на book - чтение и запись продолжаются; строки, уже записанные
+-- триггером v2026101705-sync, не перезаписываются (on conflict do nothing).
+--changeset ulab:v2026101707-p00 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 0, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p01 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 1, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p02 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 2, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p03 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 3, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p04 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 4, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p05 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 5, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p06 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 6, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p07 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 7, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p08 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 8, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p09 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 9, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p10 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 10, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p11 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 11, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p12 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 12, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p13 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 13, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p14 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 14, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-p15 dbms:postgresql
+insert into ulab_edu.book_partitioned (id, person_id, title, author, page_count, version)
+select id, person_id, title, author, page_count, version
+from ulab_edu.book
+where satisfies_hash_partition('ulab_edu.book_partitioned'::regclass, 16, 15, person_id)
+on conflict (id, person_id) do nothing;
+
+--changeset ulab:v2026101707-reconcile dbms:postgresql
+--comment: Строки, удалённые из book во время копирования, могли попасть в копию из старого снимка
+-- Без блокировки book: триггер держит обе таблицы согласованными в любом снимке, лишними бывают только такие строки.
+delete
+from ulab_edu.book_partitioned p
+where not exists(select 1 from ulab_edu.book b where b.id = p.id and b.person_id = p.person_id);
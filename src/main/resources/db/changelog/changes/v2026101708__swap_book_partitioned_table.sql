@@ -0,0 +1,28 @@
+--liquibase formatted sql
+
+--changeset ulab:v2026101708 dbms:postgresql
+--comment: Подмена book секционированной таблицей
+--preconditions onFail:HALT onError:HALT
+--precondition-sql-check expectedResult:0 select count(*) from (select id from ulab_edu.book_partitioned group by id having count(*) > 1) duplicates
+-- Блокировки: ACCESS EXCLUSIVE на book до конца транзакции - чтение и запись книг стоят.
+-- Внутри только изменения каталога, поэтому простой - время ожидания уже идущих транзакций
+-- плюс миллисекунды; lock_timeout не даёт копить очередь запросов за блокировкой,
+-- при таймауте подмена откатывается и повторяется при следующем запуске.
+set local lock_timeout = '5s';
+lock table ulab_edu.book in access exclusive mode;
+
+drop trigger trg_ulab_edu_book_partitioned_sync on ulab_edu.book;
+drop function ulab_edu.book_partitioned_sync();
+drop table ulab_edu.book;
+
+alter table ulab_edu.book_partitioned rename to book;
+alter table ulab_edu.book rename constraint pk_ulab_edu_book_partitioned_id to pk_ulab_edu_book_id;
+alter index ulab_edu.idx_ulab_edu_book_partitioned_person_id_id rename to idx_ulab_edu_book_person_id_id;
+
+comment on table ulab_edu.book is 'Книги пользователей, хэш-секции по person_id';
+comment on column ulab_edu.book.id is 'Идентификатор книги, уникален за счёт последовательности ulab_edu.sequence';
+comment on column ulab_edu.book.person_id is 'Идентификатор пользователя, ключ секционирования';
+comment on column ulab_edu.book.title is 'Заголовок';
+comment on column ulab_edu.book.author is 'Автор';
+comment on column ulab_edu.book.page_count is 'Количество страниц';
+comment on column ulab_edu.book.version is 'Версия строки для оптимистической блокировки';
@@ -0,0 +1,51 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.service.impl.RequestCoalescerImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.cache.CacheMetricsAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование метрик кэша {@link CacheConfig}.
+ */
+@UnitTest
+@DisplayName("Testing userBooks cache metrics.")
+public class CacheConfigTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(MetricsAutoConfiguration.class, CacheMetricsAutoConfiguration.class))
+            .withUserConfiguration(CacheConfig.class, RequestCoalescerImpl.class)
+            .withBean(SimpleMeterRegistry.class)
+            .withPropertyValues("spring.cache.cache-names=" + CacheConfig.USER_BOOKS_CACHE,
+                    "spring.cache.caffeine.spec=maximumSize=100,expireAfterWrite=60s,recordStats");
+
+    @Test
+    @DisplayName("Кэш userBooks. Метрики cache.gets и cache.evictions зарегистрированы и считают обращения.")
+    void userBooksCache_thenMetersBound() {
+        contextRunner.run(context -> {
+            //given
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            Cache cache = context.getBean(CacheManager.class).getCache(CacheConfig.USER_BOOKS_CACHE);
+
+            //when
+            cache.get(1, () -> "loaded");
+            cache.get(1, () -> "loaded");
+
+            //then
+            assertThat(meterRegistry.get("cache.gets").tags("cache", CacheConfig.USER_BOOKS_CACHE, "result", "hit")
+                    .functionCounter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("cache.gets").tags("cache", CacheConfig.USER_BOOKS_CACHE, "result", "miss")
+                    .functionCounter().count()).isEqualTo(1);
+            assertThat(meterRegistry.find("cache.evictions").tag("cache", CacheConfig.USER_BOOKS_CACHE)
+                    .functionCounter()).isNotNull();
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.edu.ulab.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тестирование функционала {@link ConnectionPoolConfig}.
+ */
+@UnitTest
+@DisplayName("Testing connection pool sizing.")
+public class ConnectionPoolConfigTest {
+
+    @Test
+    @DisplayName("Размер по ядрам включён. Пул фиксированного размера ядра * 2 + диски.")
+    void sizeFromCores_thenFixedPool() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.datasource.pool.size-from-cores", "true")
+                .withProperty("app.datasource.pool.database-cores", "4");
+        HikariDataSource dataSource = new HikariDataSource();
+
+        //when
+        ConnectionPoolConfig.applyPoolSize(dataSource, environment);
+
+        //then
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(9);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Размер пула задан явно. Не меняется.")
+    void explicitPoolSize_thenUnchanged() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.datasource.pool.size-from-cores", "true")
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "20");
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(20);
+
+        //when
+        ConnectionPoolConfig.applyPoolSize(dataSource, environment);
+
+        //then
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Размер пула задан в другой форме имени. Не меняется, minimum-idle тоже.")
+    void relaxedExplicitPoolSize_thenUnchanged() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.datasource.pool.size-from-cores", "true")
+                .withProperty("app.datasource.pool.database-cores", "4")
+                .withProperty("spring.datasource.hikari.maximumPoolSize", "20");
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(20);
+        dataSource.setMinimumIdle(2);
+
+        //when
+        ConnectionPoolConfig.applyPoolSize(dataSource, environment);
+
+        //then
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(20);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("minimum-idle задан в другой форме имени. Размер пула по ядрам, minimum-idle не меняется.")
+    void relaxedExplicitMinimumIdle_thenKept() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.datasource.pool.size-from-cores", "true")
+                .withProperty("app.datasource.pool.database-cores", "4")
+                .withProperty("spring.datasource.hikari.minimumIdle", "2");
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMinimumIdle(2);
+
+        //when
+        ConnectionPoolConfig.applyPoolSize(dataSource, environment);
+
+        //then
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(9);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Размер по ядрам без числа ядер сервера базы. Должно завершиться IllegalStateException.")
+    void sizeFromCoresWithoutDatabaseCores_thenFails() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.datasource.pool.size-from-cores", "true");
+        HikariDataSource dataSource = new HikariDataSource();
+
+        //then
+        assertThatThrownBy(() -> ConnectionPoolConfig.applyPoolSize(dataSource, environment))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("database-cores");
+    }
+}
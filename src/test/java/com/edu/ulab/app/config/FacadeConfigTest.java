@@ -0,0 +1,70 @@
+package com.edu.ulab.app.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.validation.BindValidationException;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование связывания и проверки настроек фасадов {@link FacadeConfig}.
+ */
+@UnitTest
+@DisplayName("Testing facade properties binding.")
+public class FacadeConfigTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(FacadeConfig.class);
+
+    @Test
+    @DisplayName("Настройки multi-get заданы. Связываются, в том числе в нестрогой форме имени.")
+    void multiGet_thenBound() {
+        contextRunner
+                .withPropertyValues("app.multi-get.max-size=200", "app.multi-get.chunkSize=50")
+                .run(context -> {
+                    MultiGetProperties properties = context.getBean(MultiGetProperties.class);
+                    assertThat(properties.getMaxSize()).isEqualTo(200);
+                    assertThat(properties.getChunkSize()).isEqualTo(50);
+                });
+    }
+
+    @Test
+    @DisplayName("Настройки не заданы. Действуют значения по умолчанию.")
+    void defaults_thenBound() {
+        contextRunner.run(context -> {
+            assertThat(context.getBean(MultiGetProperties.class).getMaxSize()).isEqualTo(1000);
+            assertThat(context.getBean(ImportProperties.class).getChunkSize()).isEqualTo(500);
+        });
+    }
+
+    @Test
+    @DisplayName("Неположительный app.multi-get.max-size. Приложение не стартует.")
+    void nonPositiveMultiGetMaxSize_thenStartupFails() {
+        contextRunner
+                .withPropertyValues("app.multi-get.max-size=0", "app.multi-get.chunk-size=0")
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseInstanceOf(BindValidationException.class)
+                        .hasStackTraceContaining("maxSize")
+                        .hasStackTraceContaining("chunkSize"));
+    }
+
+    @Test
+    @DisplayName("app.multi-get.chunk-size больше max-size. Приложение не стартует.")
+    void multiGetChunkAboveMax_thenStartupFails() {
+        contextRunner
+                .withPropertyValues("app.multi-get.max-size=100", "app.multi-get.chunk-size=500")
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseInstanceOf(BindValidationException.class)
+                        .hasStackTraceContaining("must not be greater than max-size"));
+    }
+
+    @Test
+    @DisplayName("Неположительный app.import.chunk-size. Приложение не стартует.")
+    void nonPositiveImportChunkSize_thenStartupFails() {
+        contextRunner
+                .withPropertyValues("app.import.chunk-size=-1")
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseInstanceOf(BindValidationException.class)
+                        .hasStackTraceContaining("chunkSize"));
+    }
+}
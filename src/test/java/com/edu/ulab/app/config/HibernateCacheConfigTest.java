@@ -0,0 +1,158 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.repository.BookRepository;
+import com.edu.ulab.app.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.orm.jpa.HibernateMetricsAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование кэша второго уровня {@link HibernateCacheConfig} на базе H2 в памяти.
+ * Статистика выключена, как в application.yaml: её должна включить конфигурация кэша.
+ * Каждый вызов репозитория - отдельная транзакция и сессия, поэтому повторное чтение
+ * не попадает в кэш первого уровня. Метрики регионов - от автоконфигурации Spring Boot, как в приложении.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "app.cache.hibernate.enabled=true"
+})
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class,
+        HibernateMetricsAutoConfiguration.class})
+@ContextConfiguration(classes = {HibernateCacheConfigTest.JpaConfig.class, HibernateCacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Testing Hibernate second-level cache.")
+public class HibernateCacheConfigTest {
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Statistics statistics;
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Повторное чтение пользователя. Статистика включена и считает попадание в кэш.")
+    void repeatedRead_thenHitCounted() {
+        //given
+        Person person = userRepository.save(person());
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        //when
+        userRepository.findById(person.getId());
+        userRepository.findById(person.getId());
+
+        //then
+        assertThat(statistics.isStatisticsEnabled()).isTrue();
+        assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Повторное чтение пользователя. Попадание в регион person видно в статистике и метрике.")
+    void repeatedRead_thenPersonRegionHitExported() {
+        //given
+        Person person = userRepository.save(person());
+        entityManagerFactory.getCache().evictAll();
+        double hitsBefore = regionRequests("person", "hit");
+
+        //when
+        userRepository.findById(person.getId());
+        userRepository.findById(person.getId());
+
+        //then
+        assertThat(statistics.getDomainDataRegionStatistics("person").getHitCount()).isPositive();
+        assertThat(regionRequests("person", "hit") - hitsBefore).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Повторное чтение книг пользователя. Коллекция берётся из региона person-books.")
+    void repeatedBooksRead_thenCollectionRegionHit() {
+        //given
+        Person person = userRepository.save(person());
+        bookRepository.save(book(person));
+        bookRepository.save(book(person));
+        entityManagerFactory.getCache().evictAll();
+        double hitsBefore = regionRequests("person-books", "hit");
+
+        //when
+        int firstRead = transactionTemplate.execute(status ->
+                userRepository.findById(person.getId()).orElseThrow().getBookSet().size());
+        int secondRead = transactionTemplate.execute(status ->
+                userRepository.findById(person.getId()).orElseThrow().getBookSet().size());
+
+        //then
+        assertThat(firstRead).isEqualTo(2);
+        assertThat(secondRead).isEqualTo(2);
+        assertThat(regionRequests("person-books", "hit") - hitsBefore).isEqualTo(1);
+    }
+
+    private double regionRequests(String region, String result) {
+        return meterRegistry.get("hibernate.second.level.cache.requests")
+                .tags("region", region, "result", result)
+                .functionCounter()
+                .count();
+    }
+
+    @EntityScan(basePackageClasses = Person.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class JpaConfig {
+    }
+
+    private static Book book(Person person) {
+        Book book = new Book();
+        book.setTitle("test title");
+        book.setAuthor("test author");
+        book.setPageCount(1000);
+        book.setPerson(person);
+        return book;
+    }
+
+    private static Person person() {
+        Person person = new Person();
+        person.setFullName("test name");
+        person.setTitle("reader");
+        person.setAge(11);
+        return person;
+    }
+}
@@ -0,0 +1,90 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.facade.UserDataFacade;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестирование функционала {@link OperationMetricsAspect}.
+ */
+@UnitTest
+@DisplayName("Testing operation metrics.")
+public class OperationMetricsAspectTest {
+    @Mock
+    UserService userService;
+    @Mock
+    BookService bookService;
+    @Mock
+    UserMapper userMapper;
+    @Mock
+    BookMapper bookMapper;
+
+    SimpleMeterRegistry meterRegistry;
+    UserDataFacade facade;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(
+                new UserDataFacade(userService, bookService, userMapper, bookMapper, meterRegistry));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new OperationMetricsAspect(meterRegistry));
+        facade = proxyFactory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Успешный вызов фасада. Таймер с тегами класса, метода и без исключения.")
+    void facadeCall_thenTimerRecorded() {
+        //given
+        UserDto user = new UserDto();
+        user.setId(1);
+        UserWithBooksDto userWithBooks = new UserWithBooksDto();
+        userWithBooks.setUser(user);
+        userWithBooks.setBookIdList(List.of(2, 3));
+        when(userService.getUserWithBooksById(1)).thenReturn(userWithBooks);
+
+        //when
+        facade.getUserWithBooks(1);
+
+        //then
+        Timer timer = meterRegistry.find(OperationMetricsAspect.OPERATION_METRIC)
+                .tags("layer", "facade", "class", "UserDataFacade", "method", "getUserWithBooks", "exception", "none")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Вызов фасада с ошибкой. Таймер помечается классом исключения.")
+    void failedFacadeCall_thenExceptionTagged() {
+        //given
+        when(userService.getUserWithBooksById(1)).thenThrow(new NotFoundException("No user with id: 1"));
+
+        //when
+        assertThatThrownBy(() -> facade.getUserWithBooks(1)).isInstanceOf(NotFoundException.class);
+
+        //then
+        assertThat(meterRegistry.find(OperationMetricsAspect.OPERATION_METRIC)
+                .tags("method", "getUserWithBooks", "exception", "NotFoundException")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+}
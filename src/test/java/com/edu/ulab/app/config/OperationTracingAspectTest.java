@@ -0,0 +1,127 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.repository.BookRepository;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.impl.BookServiceImpl;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестирование функционала {@link OperationTracingAspect}.
+ */
+@UnitTest
+@DisplayName("Testing operation tracing.")
+public class OperationTracingAspectTest {
+    @Mock
+    BookRepository bookRepository;
+    @Mock
+    BookMapper bookMapper;
+    @Mock
+    JdbcTemplate jdbcTemplate;
+    @Mock
+    EntityManager entityManager;
+
+    InMemorySpanExporter exporter;
+    SdkTracerProvider tracerProvider;
+    Tracer tracer;
+    BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        exporter = InMemorySpanExporter.create();
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+        tracer = tracerProvider.get(TracingConfig.INSTRUMENTATION_NAME);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(
+                new BookServiceImpl(bookRepository, bookMapper, new LockingProperties(), jdbcTemplate, entityManager));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new OperationTracingAspect(tracer));
+        bookService = proxyFactory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    @DisplayName("Вызов сервиса внутри запроса. Дочерний спан с идентификатором книги в атрибутах.")
+    void serviceCall_thenChildSpanWithArguments() {
+        //given
+        BookDto book = new BookDto();
+        book.setId(7);
+        book.setUserId(1);
+        when(bookRepository.findByIdForUpdate(7, 1)).thenReturn(Optional.of(bookEntity(7)));
+        when(bookMapper.bookDtoToBook(any())).thenReturn(bookEntity(7));
+        when(bookRepository.save(any())).thenReturn(bookEntity(7));
+        when(bookMapper.bookToBookDto(any())).thenReturn(book);
+        Span request = tracer.spanBuilder("PUT /api/v1/user/update").startSpan();
+
+        //when
+        try (Scope scope = request.makeCurrent()) {
+            bookService.updateBook(book);
+        } finally {
+            request.end();
+        }
+
+        //then
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        SpanData serviceSpan = spans.stream()
+                .filter(span -> span.getName().equals("BookServiceImpl.updateBook"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(serviceSpan.getParentSpanId()).isEqualTo(request.getSpanContext().getSpanId());
+        assertThat(serviceSpan.getAttributes().get(AttributeKey.longKey("app.arg.bookDto.id"))).isEqualTo(7L);
+        assertThat(serviceSpan.getAttributes().get(AttributeKey.stringKey("app.layer"))).isEqualTo("service");
+    }
+
+    @Test
+    @DisplayName("Ошибка в сервисе. Спан помечается ошибкой и содержит исключение.")
+    void failedServiceCall_thenErrorSpan() {
+        //given
+        when(bookRepository.findByIdAndPersonId(7, 1)).thenReturn(Optional.empty());
+
+        //when
+        assertThatThrownBy(() -> bookService.getBookById(1, 7)).isInstanceOf(NotFoundException.class);
+
+        //then
+        SpanData span = exporter.getFinishedSpanItems().get(0);
+        assertThat(span.getName()).isEqualTo("BookServiceImpl.getBookById");
+        assertThat(span.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+        assertThat(span.getEvents()).anyMatch(event -> event.getName().equals("exception"));
+    }
+
+    private static Book bookEntity(Integer id) {
+        Book book = new Book();
+        book.setId(id);
+        return book;
+    }
+}
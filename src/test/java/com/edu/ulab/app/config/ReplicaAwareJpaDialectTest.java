@@ -0,0 +1,160 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.repository.UserRepository;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование функционала {@link ReplicaAwareJpaDialect} на базе H2 в памяти с кэшем второго уровня.
+ * Маршрутизация соединений здесь не нужна: режим кэша зависит только от readOnly и {@link ReplicaRouter#readFromPrimary}.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "app.cache.hibernate.enabled=true"
+})
+@ContextConfiguration(classes = {ReplicaAwareJpaDialectTest.JpaConfig.class, HibernateCacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Testing second-level cache population from replica reads.")
+public class ReplicaAwareJpaDialectTest {
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Statistics statistics;
+    TransactionTemplate readOnly;
+    TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Транзакция readOnly. Прочитанные пользователь и его книги в кэш второго уровня не попадают.")
+    void readOnlyTransaction_thenCacheNotPopulated() {
+        //given
+        Integer personId = userRepository.save(person()).getId();
+        entityManagerFactory.getCache().evictAll();
+
+        //when
+        readOnly.execute(status -> userRepository.findById(personId).orElseThrow().getBookSet().size());
+
+        //then
+        assertThat(((EntityManagerFactoryInfo) entityManagerFactory).getJpaDialect())
+                .isInstanceOf(ReplicaAwareJpaDialect.class);
+        assertThat(entityManagerFactory.getCache().contains(Person.class, personId)).isFalse();
+        assertThat(entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                .containsCollection(Person.class.getName() + ".bookSet", personId)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Транзакция readOnly внутри readFromPrimary и транзакция записи. Кэш пополняется.")
+    void primaryReads_thenCachePopulated() throws Exception {
+        //given
+        Integer personId = userRepository.save(person()).getId();
+        entityManagerFactory.getCache().evictAll();
+
+        //when
+        ReplicaRouter.readFromPrimary(() -> readOnly.execute(status -> userRepository.findById(personId).orElseThrow()));
+        boolean cachedByPrimaryRead = entityManagerFactory.getCache().contains(Person.class, personId);
+        entityManagerFactory.getCache().evictAll();
+        readWrite.execute(status -> userRepository.findById(personId).orElseThrow().getBookSet().size());
+
+        //then
+        assertThat(cachedByPrimaryRead).isTrue();
+        assertThat(entityManagerFactory.getCache().contains(Person.class, personId)).isTrue();
+        assertThat(entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                .containsCollection(Person.class.getName() + ".bookSet", personId)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Транзакция readOnly при заполненном кэше. Пользователь берётся из кэша.")
+    void readOnlyTransaction_thenCacheRead() {
+        //given
+        Integer personId = userRepository.save(person()).getId();
+        entityManagerFactory.getCache().evictAll();
+        readWrite.execute(status -> userRepository.findById(personId).orElseThrow());
+        statistics.clear();
+
+        //when
+        readOnly.execute(status -> userRepository.findById(personId).orElseThrow());
+
+        //then
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Сессия переживает транзакцию readOnly (open-in-view). Режим кэша после неё восстановлен.")
+    void sharedSession_thenCacheModeRestored() {
+        //given
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            //when
+            Object insideReadOnly = readOnly.execute(status ->
+                    entityManager.getProperties().get(ReplicaAwareJpaDialect.STORE_MODE));
+
+            //then
+            assertThat(insideReadOnly).isEqualTo(CacheStoreMode.BYPASS);
+            assertThat(entityManager.getProperties().get(ReplicaAwareJpaDialect.STORE_MODE)).isEqualTo(CacheStoreMode.USE);
+            assertThat(entityManager.unwrap(Session.class).getCacheMode()).isEqualTo(CacheMode.NORMAL);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+    @EntityScan(basePackageClasses = Person.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class JpaConfig {
+        @Bean
+        static BeanPostProcessor replicaAwareJpaDialectPostProcessor() {
+            return ReplicaRoutingConfig.replicaAwareJpaDialectPostProcessor();
+        }
+    }
+
+    private static Person person() {
+        Person person = new Person();
+        person.setFullName("test name");
+        person.setTitle("reader-" + System.nanoTime());
+        person.setAge(11);
+        return person;
+    }
+}
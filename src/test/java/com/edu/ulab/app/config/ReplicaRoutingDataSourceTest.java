@@ -0,0 +1,173 @@
+package com.edu.ulab.app.config;
+
+import com.edu.ulab.app.service.impl.RequestCoalescerImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование функционала {@link ReplicaRoutingDataSource} на базах H2 в памяти.
+ */
+@UnitTest
+@DisplayName("Testing read replica routing.")
+public class ReplicaRoutingDataSourceTest {
+    SimpleMeterRegistry meterRegistry;
+    ReplicaProperties properties;
+    ReplicaRouter router;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readOnly;
+    TransactionTemplate readWrite;
+    String primaryUrl;
+    List<String> replicaUrls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        primaryUrl = createDatabase("primary");
+        replicaUrls = List.of(createDatabase("replica-0"), createDatabase("replica-1"));
+        properties = new ReplicaProperties();
+        properties.setMaxLag(Duration.ofSeconds(10));
+        properties.setLagQuery("SELECT seconds FROM replica_lag");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (router != null) {
+            router.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Транзакция readOnly. Чтение с реплики, запись - в основную базу.")
+    void readOnlyTransaction_thenReplica() {
+        //given
+        startRouter(1);
+
+        //when
+        String read = readOnly.execute(status -> currentNode());
+        String written = readWrite.execute(status -> currentNode());
+        String outside = currentNode();
+
+        //then
+        assertThat(read).isEqualTo("replica-0");
+        assertThat(written).isEqualTo("primary");
+        assertThat(outside).isEqualTo("primary");
+        assertThat(meterRegistry.get(ReplicaRouter.ROUTED_METRIC).tag("route", "replica-0").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Задержка реплики больше max-lag. Чтение идёт в основную базу, пока реплика не догонит.")
+    void replicaLagging_thenPrimary() {
+        //given
+        startRouter(1);
+        setLag(replicaUrls.get(0), 60);
+
+        //when
+        router.refreshLag();
+        String lagging = readOnly.execute(status -> currentNode());
+        setLag(replicaUrls.get(0), 1);
+        router.refreshLag();
+        String caughtUp = readOnly.execute(status -> currentNode());
+
+        //then
+        assertThat(lagging).isEqualTo("primary");
+        assertThat(caughtUp).isEqualTo("replica-0");
+        assertThat(meterRegistry.get(ReplicaRouter.LAG_METRIC).tag("replica", "replica-0").gauge().value())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Выбор least-connections. Чтение идёт на реплику с меньшим числом занятых соединений.")
+    void leastConnections_thenIdleReplica() throws Exception {
+        //given
+        properties.setSelection(ReplicaProperties.Selection.LEAST_CONNECTIONS);
+        startRouter(2);
+
+        //when
+        String read;
+        try (Connection busy = ((HikariDataSource) router.targetDataSources().get("replica-0")).getConnection()) {
+            read = readOnly.execute(status -> currentNode());
+        }
+
+        //then
+        assertThat(read).isEqualTo("replica-1");
+    }
+
+    @Test
+    @DisplayName("Запись и затем чтение через кэш. Загрузка в кэш читает основную базу, а не отстающую реплику.")
+    void updateThenCacheLoad_thenPrimaryData() {
+        //given
+        startRouter(1);
+        EvictionAwareCache cache = new EvictionAwareCache(new ConcurrentMapCache("node"),
+                new RequestCoalescerImpl(new CoalescingProperties(), meterRegistry));
+        cache.get(1, () -> readOnly.execute(status -> currentNode()));
+
+        //when
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = ?", "updated"));
+        cache.evict(1);
+        String loaded = cache.get(1, () -> readOnly.execute(status -> currentNode()));
+        String replicaRead = readOnly.execute(status -> currentNode());
+
+        //then
+        assertThat(loaded).isEqualTo("updated");
+        assertThat(cache.get(1, String.class)).isEqualTo("updated");
+        assertThat(replicaRead).isEqualTo("replica-0");
+    }
+
+    private void startRouter(int replicas) {
+        replicaUrls.stream().limit(replicas).forEach(url -> {
+            ReplicaProperties.Instance instance = new ReplicaProperties.Instance();
+            instance.setUrl(url);
+            instance.setMaximumPoolSize(2);
+            properties.getInstances().add(instance);
+        });
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl(primaryUrl);
+        primary.setUsername("sa");
+        primary.setMaximumPoolSize(2);
+        router = new ReplicaRouter(primary, properties, meterRegistry);
+        router.refreshLag();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(router));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static String createDatabase(String name) {
+        String url = "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        database.execute("CREATE TABLE node(name varchar(32))");
+        database.update("INSERT INTO node VALUES (?)", name);
+        database.execute("CREATE TABLE replica_lag(seconds double precision)");
+        database.update("INSERT INTO replica_lag VALUES (0)");
+        return url;
+    }
+
+    private static void setLag(String url, double seconds) {
+        new JdbcTemplate(new DriverManagerDataSource(url, "sa", "")).update("UPDATE replica_lag SET seconds = ?", seconds);
+    }
+}
@@ -0,0 +1,66 @@
+package com.edu.ulab.app.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Тестирование условий подключения {@link VirtualThreadConfig}.
+ */
+@UnitTest
+@DisplayName("Testing virtual thread configuration.")
+public class VirtualThreadConfigTest {
+    private static final boolean VIRTUAL_THREADS_SUPPORTED = Runtime.version().feature() >= 21;
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    @Test
+    @DisplayName("Свойство не задано. Бины виртуальных потоков не создаются.")
+    void disabled_thenNoBeans() {
+        contextRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).doesNotHaveBean(ExecutorService.class);
+            assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+            assertThat(context).doesNotHaveBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME);
+        });
+    }
+
+    @Test
+    @DisplayName("Включено на Java ниже 21. Приложение не стартует с понятной ошибкой.")
+    void enabledBeforeJava21_thenStartupFails() {
+        assumeTrue(!VIRTUAL_THREADS_SUPPORTED, "virtual threads are available on this JVM");
+
+        contextRunner
+                .withPropertyValues("app.web.virtual-threads.enabled=true")
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseInstanceOf(NoSuchMethodException.class)
+                        .hasStackTraceContaining("app.web.virtual-threads.enabled requires Java 21"));
+    }
+
+    @Test
+    @DisplayName("Включено на Java 21+. Tomcat и applicationTaskExecutor работают на виртуальных потоках.")
+    void enabledOnJava21_thenVirtualThreadBeans() {
+        assumeTrue(VIRTUAL_THREADS_SUPPORTED, "virtual threads require Java 21");
+
+        contextRunner
+                .withPropertyValues("app.web.virtual-threads.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).hasSingleBean(ExecutorService.class);
+                    assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+                    AsyncTaskExecutor executor = context.getBean(
+                            TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncTaskExecutor.class);
+                    assertThat(executor.submit(() -> Thread.currentThread().toString()).get())
+                            .contains("VirtualThread");
+                });
+    }
+}
@@ -0,0 +1,334 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.CacheConfig;
+import com.edu.ulab.app.config.CoalescingProperties;
+import com.edu.ulab.app.config.EvictionAwareCache;
+import com.edu.ulab.app.config.LockingConfig;
+import com.edu.ulab.app.config.LockingProperties;
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.repository.ReactiveBookRepository;
+import com.edu.ulab.app.repository.ReactiveSequenceIdGenerator;
+import com.edu.ulab.app.repository.ReactiveUserRepository;
+import com.edu.ulab.app.service.impl.RequestCoalescerImpl;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import com.edu.ulab.app.web.response.BookResponse;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование функционала {@link ReactiveUserDataFacade} на встроенной H2 через R2DBC.
+ */
+@UnitTest
+@DisplayName("Testing reactive user book functionality.")
+public class ReactiveUserDataFacadeTest {
+    ReactiveUserDataFacade facade;
+    DatabaseClient databaseClient;
+    ConnectionFactory connectionFactory;
+    ConcurrentMapCacheManager cacheManager;
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = ConnectionFactories.get(
+                "r2dbc:h2:mem:///" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1");
+        databaseClient = DatabaseClient.create(connectionFactory);
+        Flux.just("CREATE SCHEMA ulab_edu",
+                        "CREATE TABLE ulab_edu.person(id integer primary key, full_name varchar(50) not null, "
+                                + "title varchar(50) not null unique, age integer not null, version bigint not null default 0)",
+                        "CREATE TABLE ulab_edu.book(id integer primary key, person_id integer not null, "
+                                + "title varchar(50) not null, author varchar(50) not null, page_count integer not null, "
+                                + "version bigint not null default 0)",
+                        "CREATE SEQUENCE sequence")
+                .concatMap(sql -> databaseClient.sql(sql).then())
+                .blockLast();
+
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.USER_BOOKS_CACHE);
+        meterRegistry = new SimpleMeterRegistry();
+        facade = facade(new ReactiveUserRepository(databaseClient), new ReactiveBookRepository(databaseClient),
+                cacheManager, new LockingProperties());
+    }
+
+    @Test
+    @DisplayName("Создание пользователя с книгами. Пользователь и книги читаются из базы.")
+    void createUserWithBooks_thenGet() {
+        //given
+        UserBookRequest request = userBookRequest(null, "reader", book(null, "first"), book(null, "second"));
+
+        //when
+        UserBookResponse created = facade.createUserWithBooks(request).block();
+
+        //then
+        assertThat(created).isNotNull();
+        assertThat(created.getBooksIdList()).hasSize(2);
+        StepVerifier.create(facade.getUserWithBooks(created.getUserId()))
+                .assertNext(response -> assertThat(response.getBooksIdList())
+                        .containsExactlyElementsOf(created.getBooksIdList()))
+                .verifyComplete();
+        StepVerifier.create(facade.getUserBooks(created.getUserId()).map(BookResponse::getTitle))
+                .expectNext("first", "second")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Обновление пользователя. Новые книги добавляются, кэш ответа сбрасывается.")
+    void updateUserWithBooks_thenCacheEvicted() {
+        //given
+        UserBookResponse created = facade.createUserWithBooks(
+                userBookRequest(null, "reader", book(null, "first"))).block();
+        Integer userId = created.getUserId();
+        facade.getUserWithBooks(userId).block();
+        Integer bookId = created.getBooksIdList().get(0);
+
+        //when
+        UserBookResponse updated = facade.updateUserWithBooks(
+                userBookRequest(userId, "writer", book(bookId, "renamed"), book(null, "third"))).block();
+
+        //then
+        assertThat(updated.getBooksIdList()).hasSize(2).contains(bookId);
+        assertThat(cacheManager.getCache(CacheConfig.USER_BOOKS_CACHE).get(userId)).isNull();
+        StepVerifier.create(facade.getUserBooks(userId).map(BookResponse::getTitle))
+                .expectNext("renamed", "third")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Ошибка в середине обновления. Транзакция откатывается целиком.")
+    void updateUserWithMissingBook_thenRolledBack() {
+        //given
+        UserBookResponse created = facade.createUserWithBooks(
+                userBookRequest(null, "reader", book(null, "first"))).block();
+        Integer userId = created.getUserId();
+
+        //when
+        StepVerifier.create(facade.updateUserWithBooks(
+                        userBookRequest(userId, "writer", book(null, "new"), book(-1, "missing"))))
+                .expectError(NotFoundException.class)
+                .verify();
+
+        //then
+        StepVerifier.create(facade.getUserBooks(userId).map(BookResponse::getTitle))
+                .expectNext("first")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя. Пользователь и книги удаляются, повторное чтение - NotFoundException.")
+    void deleteUserWithBooks_thenNotFound() {
+        //given
+        UserBookResponse created = facade.createUserWithBooks(
+                userBookRequest(null, "reader", book(null, "first"))).block();
+
+        //when
+        facade.deleteUserWithBooks(created.getUserId()).block();
+
+        //then
+        StepVerifier.create(facade.getUserWithBooks(created.getUserId()))
+                .expectError(NotFoundException.class)
+                .verify();
+        StepVerifier.create(facade.getUserBooks(created.getUserId()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Ключ очищен во время чтения из базы. Прочитанный до очистки ответ в кэш не попадает.")
+    void getUserWithBooks_evictedDuringLoad_thenNotCached() {
+        //given
+        UserBookResponse created = facade.createUserWithBooks(
+                userBookRequest(null, "reader", book(null, "first"))).block();
+        Integer userId = created.getUserId();
+        SimpleCacheManager evictionAwareCacheManager = new SimpleCacheManager();
+        evictionAwareCacheManager.setCaches(List.of(new EvictionAwareCache(
+                new ConcurrentMapCache(CacheConfig.USER_BOOKS_CACHE),
+                new RequestCoalescerImpl(new CoalescingProperties(), meterRegistry))));
+        evictionAwareCacheManager.initializeCaches();
+        Cache cache = evictionAwareCacheManager.getCache(CacheConfig.USER_BOOKS_CACHE);
+        ReactiveUserRepository userRepository = new ReactiveUserRepository(databaseClient) {
+            @Override
+            public Mono<UserWithBooksDto> findWithBookIdsById(Integer id) {
+                // обновление коммитится и очищает ключ, пока ответ ещё читается
+                return super.findWithBookIdsById(id)
+                        .doOnNext(userWithBooks -> cache.evict(id));
+            }
+        };
+        ReactiveUserDataFacade evictingFacade = facade(userRepository, new ReactiveBookRepository(databaseClient),
+                evictionAwareCacheManager, new LockingProperties());
+
+        //when
+        UserBookResponse response = evictingFacade.getUserWithBooks(userId).block();
+
+        //then
+        assertThat(response.getBooksIdList()).containsExactlyElementsOf(created.getBooksIdList());
+        assertThat(cache.get(userId)).isNull();
+    }
+
+    @Test
+    @DisplayName("Промах по несуществующему пользователю. NotFoundException без обёртки кэша.")
+    void getMissingUser_thenNotFound() {
+        StepVerifier.create(facade.getUserWithBooks(-1))
+                .expectError(NotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Обновление книг. Пишутся только изменённые книги, версия растёт только у них.")
+    void updateUserWithBooks_thenOnlyChangedBooksWritten() {
+        //given
+        UserBookResponse created = facade.createUserWithBooks(
+                userBookRequest(null, "reader", book(null, "first"), book(null, "second"))).block();
+        Integer userId = created.getUserId();
+        Integer firstId = created.getBooksIdList().get(0);
+        Integer secondId = created.getBooksIdList().get(1);
+
+        //when
+        facade.updateUserWithBooks(
+                userBookRequest(userId, "reader", book(firstId, "renamed"), book(secondId, "second"))).block();
+
+        //then
+        assertThat(bookVersion(firstId)).isEqualTo(1);
+        assertThat(bookVersion(secondId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Книгу изменили после чтения версии. Транзакция повторяется и обновление применяется.")
+    void updateUserWithBooks_concurrentBookChange_thenRetried() {
+        //given
+        UserBookResponse created = facade.createUserWithBooks(
+                userBookRequest(null, "reader", book(null, "first"))).block();
+        Integer userId = created.getUserId();
+        Integer bookId = created.getBooksIdList().get(0);
+        ReactiveUserDataFacade conflictingFacade = facade(new ReactiveUserRepository(databaseClient),
+                concurrentlyChangedBookRepository(1), cacheManager, new LockingProperties());
+
+        //when
+        conflictingFacade.updateUserWithBooks(userBookRequest(userId, "reader", book(bookId, "renamed"))).block();
+
+        //then
+        StepVerifier.create(facade.getUserBooks(userId).map(BookResponse::getTitle))
+                .expectNext("renamed")
+                .verifyComplete();
+        assertThat(meterRegistry.get(LockingConfig.CONFLICT_METRIC).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Конфликт версий во всех попытках. OptimisticLockingFailureException, книга не изменена.")
+    void updateUserWithBooks_conflictOnEveryAttempt_thenOptimisticLockingFailure() {
+        //given
+        UserBookResponse created = facade.createUserWithBooks(
+                userBookRequest(null, "reader", book(null, "first"))).block();
+        Integer userId = created.getUserId();
+        Integer bookId = created.getBooksIdList().get(0);
+        LockingProperties lockingProperties = new LockingProperties();
+        lockingProperties.setMaxAttempts(2);
+        lockingProperties.setBackoffMillis(1);
+        ReactiveUserDataFacade conflictingFacade = facade(new ReactiveUserRepository(databaseClient),
+                concurrentlyChangedBookRepository(Integer.MAX_VALUE), cacheManager, lockingProperties);
+
+        //when
+        StepVerifier.create(conflictingFacade.updateUserWithBooks(
+                        userBookRequest(userId, "reader", book(bookId, "renamed"))))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        //then
+        StepVerifier.create(facade.getUserBooks(userId).map(BookResponse::getTitle))
+                .expectNext("first")
+                .verifyComplete();
+        assertThat(meterRegistry.get(LockingConfig.CONFLICT_METRIC).counter().count()).isEqualTo(2);
+    }
+
+    private ReactiveUserDataFacade facade(ReactiveUserRepository userRepository, ReactiveBookRepository bookRepository,
+                                          CacheManager cacheManager, LockingProperties lockingProperties) {
+        return new ReactiveUserDataFacade(
+                userRepository,
+                bookRepository,
+                new ReactiveSequenceIdGenerator(databaseClient),
+                TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory)),
+                Mappers.getMapper(UserMapper.class),
+                Mappers.getMapper(BookMapper.class),
+                cacheManager,
+                new StaticListableBeanFactory().getBeanProvider(EntityManagerFactory.class),
+                meterRegistry,
+                lockingProperties);
+    }
+
+    /**
+     * Репозиторий, в котором первые conflicts чтений версий сопровождаются записью книг другой транзакцией.
+     */
+    private ReactiveBookRepository concurrentlyChangedBookRepository(int conflicts) {
+        AtomicInteger reads = new AtomicInteger();
+        return new ReactiveBookRepository(databaseClient) {
+            @Override
+            public Flux<VersionedBook> findVersionedByPersonId(Integer personId) {
+                return super.findVersionedByPersonId(personId)
+                        .concatWith(Mono.defer(() -> reads.getAndIncrement() < conflicts
+                                ? databaseClient.sql("UPDATE ulab_edu.book SET version = version + 1 WHERE person_id = :personId")
+                                .bind("personId", personId)
+                                .then()
+                                .then(Mono.empty())
+                                : Mono.empty()));
+            }
+        };
+    }
+
+    private Long bookVersion(Integer bookId) {
+        return databaseClient.sql("SELECT version FROM ulab_edu.book WHERE id = :id")
+                .bind("id", bookId)
+                .map(row -> row.get("version", Long.class))
+                .one()
+                .block();
+    }
+
+    private static UserBookRequest userBookRequest(Integer userId, String title, BookRequest... books) {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setId(userId);
+        userRequest.setFullName("test name");
+        userRequest.setTitle(title);
+        userRequest.setAge(33);
+        UserBookRequest request = new UserBookRequest();
+        request.setUserRequest(userRequest);
+        request.setBookRequests(new ArrayList<>(List.of(books)));
+        return request;
+    }
+
+    private static BookRequest book(Integer id, String title) {
+        BookRequest book = new BookRequest();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor("author");
+        book.setPageCount(100);
+        return book;
+    }
+}
@@ -0,0 +1,93 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.MultiGetProperties;
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.exception.BadRequestException;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестирование функционала {@link UserBatchFacade}.
+ */
+@UnitTest
+@DisplayName("Testing users multi-get.")
+public class UserBatchFacadeTest {
+    @Mock
+    UserService userService;
+    @Mock
+    BookService bookService;
+
+    UserBatchFacade facade;
+
+    @BeforeEach
+    void setUp() {
+        MultiGetProperties properties = new MultiGetProperties();
+        properties.setMaxSize(4);
+        properties.setChunkSize(2);
+        facade = new UserBatchFacade(userService, bookService, properties);
+    }
+
+    @Test
+    @DisplayName("Чтение пачки пользователей. Один запрос пользователей и книг на пачку, порядок как в запросе.")
+    void getUsersWithBooks_thenChunkedInRequestOrder() {
+        //given
+        when(userService.getUsersByIds(List.of(3, 1))).thenReturn(List.of(user(1), user(3)));
+        when(userService.getUsersByIds(List.of(2))).thenReturn(List.of(user(2)));
+        when(bookService.findIdsByUserIds(Set.of(1, 3))).thenReturn(Map.of(1, List.of(10, 11)));
+        when(bookService.findIdsByUserIds(Set.of(2))).thenReturn(Map.of(2, List.of(20)));
+
+        //when
+        Map<Integer, UserBookResponse> responses = facade.getUsersWithBooks(List.of(3, 1, 3, 2));
+
+        //then
+        assertThat(responses).containsOnlyKeys(3, 1, 2);
+        assertThat(responses.keySet()).containsExactly(3, 1, 2);
+        assertThat(responses.get(1).getBooksIdList()).containsExactly(10, 11);
+        assertThat(responses.get(3).getBooksIdList()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Пачка без найденных пользователей. Книги не запрашиваются, ответ пустой.")
+    void unknownUsers_thenEmptyWithoutBookQuery() {
+        //given
+        when(userService.getUsersByIds(List.of(7))).thenReturn(List.of());
+
+        //when
+        Map<Integer, UserBookResponse> responses = facade.getUsersWithBooks(List.of(7));
+
+        //then
+        assertThat(responses).isEmpty();
+        verify(bookService, never()).findIdsByUserIds(any());
+    }
+
+    @Test
+    @DisplayName("Больше идентификаторов, чем app.multi-get.max-size. Должно завершиться BadRequestException.")
+    void tooManyIds_thenBadRequest() {
+        assertThatThrownBy(() -> facade.getUsersWithBooks(List.of(1, 2, 3, 4, 5)))
+                .isInstanceOf(BadRequestException.class);
+        verify(userService, never()).getUsersByIds(any());
+    }
+
+    private static UserDto user(int id) {
+        UserDto user = new UserDto();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,126 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.mapper.BookMapperImpl;
+import com.edu.ulab.app.mapper.UserMapperImpl;
+import com.edu.ulab.app.service.impl.BookServiceImplStorage;
+import com.edu.ulab.app.service.impl.UserServiceImplStorage;
+import com.edu.ulab.app.storage.Storage;
+import com.edu.ulab.app.web.request.BookRequest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import com.edu.ulab.app.web.response.BookPageResponse;
+import com.edu.ulab.app.web.response.BookResponse;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тестирование постраничного чтения книг {@link UserDataFacade#getUserBooksPage}
+ * на хранилище в памяти.
+ */
+@UnitTest
+@DisplayName("Testing user books keyset pages.")
+public class UserDataFacadeBooksPageTest {
+    UserDataFacade facade;
+
+    @BeforeEach
+    void setUp() {
+        Storage storage = new Storage();
+        facade = new UserDataFacade(new UserServiceImplStorage(storage, new UserMapperImpl()),
+                new BookServiceImplStorage(storage, new BookMapperImpl()),
+                new UserMapperImpl(), new BookMapperImpl(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Обход страниц по nextAfterId. Все книги пользователя по возрастанию id, последняя страница без nextAfterId.")
+    void walkPages_thenAllBooksInOrder() {
+        //given
+        UserBookResponse user = createUser(5);
+        createUser(3);
+
+        //when
+        List<BookPageResponse> pages = new ArrayList<>();
+        Integer afterId = 0;
+        do {
+            BookPageResponse page = facade.getUserBooksPage(user.getUserId(), afterId, 2);
+            pages.add(page);
+            afterId = page.getNextAfterId();
+        } while (afterId != null && pages.size() < 10);
+
+        //then
+        assertThat(pages).hasSize(3);
+        assertThat(pages).extracting(page -> page.getBooks().size()).containsExactly(2, 2, 1);
+        assertThat(pages.stream().flatMap(page -> page.getBooks().stream()).map(BookResponse::getId))
+                .containsExactlyElementsOf(user.getBooksIdList());
+    }
+
+    @Test
+    @DisplayName("Число книг кратно размеру страницы. Последняя страница пустая и без nextAfterId.")
+    void fullLastPage_thenEmptyTerminalPage() {
+        //given
+        UserBookResponse user = createUser(2);
+
+        //when
+        BookPageResponse first = facade.getUserBooksPage(user.getUserId(), 0, 2);
+        BookPageResponse second = facade.getUserBooksPage(user.getUserId(), first.getNextAfterId(), 2);
+
+        //then
+        assertThat(first.getNextAfterId()).isEqualTo(user.getBooksIdList().get(1));
+        assertThat(second.getBooks()).isEmpty();
+        assertThat(second.getNextAfterId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Размер страницы вне 1..500. Приводится к границе.")
+    void limitOutOfRange_thenClamped() {
+        //given
+        UserBookResponse user = createUser(3);
+
+        //when
+        BookPageResponse zero = facade.getUserBooksPage(user.getUserId(), 0, 0);
+        BookPageResponse huge = facade.getUserBooksPage(user.getUserId(), 0, 10_000);
+
+        //then
+        assertThat(zero.getBooks()).hasSize(1);
+        assertThat(zero.getNextAfterId()).isEqualTo(user.getBooksIdList().get(0));
+        assertThat(huge.getBooks()).hasSize(3);
+        assertThat(huge.getNextAfterId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Страница книг несуществующего пользователя. Должно завершиться NotFoundException.")
+    void unknownUser_thenNotFound() {
+        assertThatThrownBy(() -> facade.getUserBooksPage(42, 0, 10))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private UserBookResponse createUser(int books) {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setFullName("test name");
+        userRequest.setTitle("reader");
+        userRequest.setAge(11);
+        UserBookRequest request = new UserBookRequest();
+        request.setUserRequest(userRequest);
+        request.setBookRequests(IntStream.range(0, books)
+                .mapToObj(i -> {
+                    BookRequest bookRequest = new BookRequest();
+                    bookRequest.setTitle("title " + i);
+                    bookRequest.setAuthor("author");
+                    bookRequest.setPageCount(100);
+                    return bookRequest;
+                })
+                .toList());
+        return facade.createUserWithBooks(request);
+    }
+}
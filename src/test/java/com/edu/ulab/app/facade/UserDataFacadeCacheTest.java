@@ -0,0 +1,282 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.CacheConfig;
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.dto.UserWithBooksDto;
+import com.edu.ulab.app.mapper.BookMapperImpl;
+import com.edu.ulab.app.mapper.UserMapperImpl;
+import com.edu.ulab.app.service.BookService;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.service.impl.RequestCoalescerImpl;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.request.UserRequest;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестирование кэша userBooks {@link UserDataFacade}: кэш и транзакции Spring,
+ * сервисы - заглушки, транзакции - над базой H2 в памяти.
+ */
+@UnitTest
+@DisplayName("Testing userBooks cache consistency.")
+public class UserDataFacadeCacheTest {
+    @Mock
+    UserService userService;
+    @Mock
+    BookService bookService;
+
+    AnnotationConfigApplicationContext context;
+    UserDataFacade facade;
+    AtomicInteger loads;
+    AtomicReference<List<Integer>> storedBookIds;
+
+    @BeforeEach
+    void setUp() {
+        loads = new AtomicInteger();
+        storedBookIds = new AtomicReference<>(List.of(10));
+        lenient().when(userService.getUserWithBooksById(1)).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            return userWithBooks(storedBookIds.get());
+        });
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("cache", Map.of(
+                "spring.cache.cache-names", CacheConfig.USER_BOOKS_CACHE,
+                "spring.cache.caffeine.spec", "maximumSize=100,expireAfterWrite=60s")));
+        context.registerBean(UserService.class, () -> userService);
+        context.registerBean(BookService.class, () -> bookService);
+        context.register(CacheTestConfig.class);
+        context.refresh();
+        facade = context.getBean(UserDataFacade.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    @DisplayName("Обновление пользователя. Кэш очищается после коммита, следующее чтение видит новые данные.")
+    void update_thenEvictedAfterCommit() {
+        //given
+        facade.getUserWithBooks(1);
+        AtomicReference<UserBookResponse> readInTransaction = new AtomicReference<>();
+        stubUpdate(() -> {
+            storedBookIds.set(List.of(20));
+            readInTransaction.set(facade.getUserWithBooks(1));
+        });
+
+        //when
+        facade.updateUserWithBooks(updateRequest());
+        UserBookResponse afterCommit = facade.getUserWithBooks(1);
+
+        //then
+        assertThat(readInTransaction.get().getBooksIdList()).containsExactly(10);
+        assertThat(afterCommit.getBooksIdList()).containsExactly(20);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Обновление откатилось. Кэш не очищается.")
+    void rolledBackUpdate_thenNotEvicted() {
+        //given
+        facade.getUserWithBooks(1);
+        stubUpdate(() -> {
+            throw new IllegalStateException("update failed");
+        });
+
+        //when
+        assertThatThrownBy(() -> facade.updateUserWithBooks(updateRequest()))
+                .isInstanceOf(IllegalStateException.class);
+        UserBookResponse response = facade.getUserWithBooks(1);
+
+        //then
+        assertThat(response.getBooksIdList()).containsExactly(10);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Загрузка прочитала данные до коммита и закончилась после очистки. Результат не кэшируется.")
+    void loadFinishedAfterEvict_thenNotCached() throws Exception {
+        //given
+        CountDownLatch readBeforeCommit = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loads.incrementAndGet();
+            UserWithBooksDto read = userWithBooks(storedBookIds.get());
+            if (loads.get() == 1) {
+                readBeforeCommit.countDown();
+                await(release);
+            }
+            return read;
+        }).when(userService).getUserWithBooksById(1);
+        stubUpdate(() -> storedBookIds.set(List.of(20)));
+
+        //when
+        CompletableFuture<UserBookResponse> staleLoad = CompletableFuture.supplyAsync(() -> facade.getUserWithBooks(1));
+        assertThat(readBeforeCommit.await(5, TimeUnit.SECONDS)).isTrue();
+        facade.updateUserWithBooks(updateRequest());
+        release.countDown();
+        UserBookResponse stale = staleLoad.get(5, TimeUnit.SECONDS);
+        UserBookResponse afterUpdate = facade.getUserWithBooks(1);
+
+        //then
+        assertThat(stale.getBooksIdList()).containsExactly(10);
+        assertThat(afterUpdate.getBooksIdList()).containsExactly(20);
+        assertThat(facade.getUserWithBooks(1).getBooksIdList()).containsExactly(20);
+        verify(userService, times(2)).getUserWithBooksById(1);
+    }
+
+    @Test
+    @DisplayName("Одновременные промахи одного пользователя. Одна загрузка из базы.")
+    void concurrentMisses_thenLoadedOnce() throws Exception {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loads.incrementAndGet();
+            started.countDown();
+            await(release);
+            return userWithBooks(storedBookIds.get());
+        }).when(userService).getUserWithBooksById(1);
+
+        //when
+        CompletableFuture<UserBookResponse> first = CompletableFuture.supplyAsync(() -> facade.getUserWithBooks(1));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<UserBookResponse> second = CompletableFuture.supplyAsync(() -> facade.getUserWithBooks(1));
+        Thread.sleep(200);
+        release.countDown();
+
+        //then
+        assertThat(first.get(5, TimeUnit.SECONDS).getBooksIdList()).containsExactly(10);
+        assertThat(second.get(5, TimeUnit.SECONDS).getBooksIdList()).containsExactly(10);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Чтение после коммита, пока идёт загрузка, начатая до него. Не присоединяется к ней и видит новые данные.")
+    void readAfterCommitDuringStaleLoad_thenFreshLoad() throws Exception {
+        //given
+        CountDownLatch readBeforeCommit = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            UserWithBooksDto read = userWithBooks(storedBookIds.get());
+            if (loads.incrementAndGet() == 1) {
+                readBeforeCommit.countDown();
+                await(release);
+            }
+            return read;
+        }).when(userService).getUserWithBooksById(1);
+        stubUpdate(() -> storedBookIds.set(List.of(20)));
+
+        //when
+        CompletableFuture<UserBookResponse> staleLoad = CompletableFuture.supplyAsync(() -> facade.getUserWithBooks(1));
+        assertThat(readBeforeCommit.await(5, TimeUnit.SECONDS)).isTrue();
+        facade.updateUserWithBooks(updateRequest());
+        UserBookResponse afterCommit = facade.getUserWithBooks(1);
+        release.countDown();
+
+        //then
+        assertThat(afterCommit.getBooksIdList()).containsExactly(20);
+        assertThat(staleLoad.get(5, TimeUnit.SECONDS).getBooksIdList()).containsExactly(10);
+        assertThat(facade.getUserWithBooks(1).getBooksIdList()).containsExactly(20);
+        assertThat(loads).hasValue(2);
+    }
+
+    private void stubUpdate(Runnable write) {
+        UserDto user = new UserDto();
+        user.setId(1);
+        when(userService.updateUser(any())).thenReturn(user);
+        when(bookService.updateBooks(eq(1), anyList())).thenAnswer(invocation -> {
+            write.run();
+            return storedBookIds.get();
+        });
+    }
+
+    private static UserBookRequest updateRequest() {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setId(1);
+        userRequest.setFullName("test name");
+        userRequest.setTitle("reader");
+        userRequest.setAge(11);
+        UserBookRequest request = new UserBookRequest();
+        request.setUserRequest(userRequest);
+        request.setBookRequests(List.of());
+        return request;
+    }
+
+    private static UserWithBooksDto userWithBooks(List<Integer> bookIds) {
+        UserDto user = new UserDto();
+        user.setId(1);
+        UserWithBooksDto userWithBooks = new UserWithBooksDto();
+        userWithBooks.setUser(user);
+        userWithBooks.setBookIdList(bookIds);
+        return userWithBooks;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import({CacheConfig.class, UserDataFacade.class, UserMapperImpl.class, BookMapperImpl.class,
+            RequestCoalescerImpl.class})
+    static class CacheTestConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource("jdbc:h2:mem:cache-" + UUID.randomUUID(), "sa", "");
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.dto.UserBookRowDto;
+import com.edu.ulab.app.service.UserService;
+import com.edu.ulab.app.web.constant.ExportFormat;
+import com.edu.ulab.app.web.response.BookResponse;
+import com.edu.ulab.app.web.response.UserExportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестирование функционала {@link UserExportFacade}.
+ */
+@UnitTest
+@DisplayName("Testing NDJSON/CSV users export.")
+public class UserExportFacadeTest {
+    @Mock
+    UserService userService;
+
+    ObjectMapper objectMapper;
+    UserExportFacade facade;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        facade = new UserExportFacade(userService, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Выгрузка NDJSON. Одна строка на пользователя с его книгами, пользователь без книг - с пустым списком.")
+    void ndjson_thenLinePerUser() throws IOException {
+        //given
+        when(userService.streamUsersWithBooks()).thenReturn(Stream.of(
+                new UserBookRowDto(1, "first", "reader", 30, 10, "book 10", "author", 100),
+                new UserBookRowDto(1, "first", "reader", 30, 11, "book 11", "author", 200),
+                new UserBookRowDto(2, "second", "writer", 40, null, null, null, null),
+                new UserBookRowDto(3, "third", "reader", 50, 12, "book 12", "author", 300)));
+
+        //when
+        List<UserExportResponse> users = objectMapper
+                .readerFor(UserExportResponse.class)
+                .<UserExportResponse>readValues(new StringReader(export(ExportFormat.NDJSON)))
+                .readAll();
+
+        //then
+        assertThat(users).extracting(UserExportResponse::getId).containsExactly(1, 2, 3);
+        assertThat(users.get(0).getBooks()).extracting(BookResponse::getId).containsExactly(10, 11);
+        assertThat(users.get(1).getBooks()).isEmpty();
+        assertThat(users.get(2).getBooks()).singleElement().satisfies(book -> {
+            assertThat(book.getTitle()).isEqualTo("book 12");
+            assertThat(book.getPageCount()).isEqualTo(300);
+        });
+    }
+
+    @Test
+    @DisplayName("Выгрузка CSV. Заголовок и строка на книгу, у пользователя без книг пустые поля книги.")
+    void csv_thenHeaderAndRowPerBook() throws IOException {
+        //given
+        when(userService.streamUsersWithBooks()).thenReturn(Stream.of(
+                new UserBookRowDto(1, "first", "reader", 30, 10, "book", "author", 100),
+                new UserBookRowDto(2, "second", "writer", 40, null, null, null, null)));
+
+        //when
+        String csv = export(ExportFormat.CSV);
+
+        //then
+        assertThat(csv).isEqualTo("""
+                user_id,full_name,title,age,book_id,book_title,author,page_count
+                1,first,reader,30,10,book,author,100
+                2,second,writer,40,,,,
+                """);
+    }
+
+    @Test
+    @DisplayName("Выгрузка CSV. Значения с запятыми, кавычками и переводами строк берутся в кавычки.")
+    void csvSpecialCharacters_thenQuoted() throws IOException {
+        //given
+        when(userService.streamUsersWithBooks()).thenReturn(Stream.of(
+                new UserBookRowDto(1, "Doe, John", "say \"hi\"", 30, 10, "line\nbreak", "cr\rauthor", 100)));
+
+        //when
+        String csv = export(ExportFormat.CSV);
+
+        //then
+        assertThat(csv.substring(csv.indexOf('\n') + 1))
+                .isEqualTo("1,\"Doe, John\",\"say \"\"hi\"\"\",30,10,\"line\nbreak\",\"cr\rauthor\",100\n");
+    }
+
+    private String export(ExportFormat format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        facade.exportUsersWithBooks(format, outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,160 @@
+package com.edu.ulab.app.facade;
+
+import com.edu.ulab.app.config.ImportProperties;
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.web.request.UserBookRequest;
+import com.edu.ulab.app.web.response.ImportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестирование функционала {@link UserImportFacade}.
+ */
+@UnitTest
+@DisplayName("Testing NDJSON users import.")
+public class UserImportFacadeTest {
+    @Mock
+    UserDataFacade userDataFacade;
+
+    UserImportFacade facade;
+    List<List<String>> chunks;
+
+    @BeforeEach
+    void setUp() {
+        ImportProperties properties = new ImportProperties();
+        properties.setChunkSize(2);
+        facade = new UserImportFacade(userDataFacade, new ObjectMapper(), properties);
+        chunks = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("Пять записей при chunk-size 2. Сохраняются пачками 2, 2 и 1 в порядке файла.")
+    void records_thenImportedInChunks() throws IOException {
+        //given
+        recordChunks();
+
+        //when
+        ImportResponse response = facade.importUsersWithBooks(ndjson(records(5)));
+
+        //then
+        assertThat(chunks).containsExactly(List.of("u1", "u2"), List.of("u3", "u4"), List.of("u5"));
+        assertThat(response.getImported()).isEqualTo(5);
+        assertThat(response.getFailed()).isZero();
+        assertThat(response.getErrors()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Пачка не сохранилась. Её записи повторяются по одной, ошибочной считается только падающая.")
+    void failedChunk_thenRetriedOneByOne() throws IOException {
+        //given
+        when(userDataFacade.createUsersWithBooks(anyList())).thenAnswer(invocation -> {
+            List<UserBookRequest> chunk = invocation.getArgument(0);
+            if (chunk.stream().anyMatch(record -> record.getUserRequest().getFullName().equals("u3"))) {
+                throw new IllegalStateException("constraint violated");
+            }
+            chunks.add(chunk.stream().map(record -> record.getUserRequest().getFullName()).toList());
+            return List.of();
+        });
+
+        //when
+        ImportResponse response = facade.importUsersWithBooks(ndjson(records(5)));
+
+        //then
+        assertThat(chunks).containsExactly(List.of("u1", "u2"), List.of("u4"), List.of("u5"));
+        assertThat(response.getImported()).isEqualTo(4);
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(response.getErrors()).containsExactly("Line 3: constraint violated");
+    }
+
+    @Test
+    @DisplayName("Некорректная строка. Она пропускается с ошибкой, следующие строки импортируются.")
+    void malformedLine_thenSkippedAndImportContinues() throws IOException {
+        //given
+        recordChunks();
+        String body = records(2) + "{\"userRequest\": \n" + records("v", 3);
+
+        //when
+        ImportResponse response = facade.importUsersWithBooks(ndjson(body));
+
+        //then
+        assertThat(chunks).containsExactly(List.of("u1", "u2"), List.of("v1", "v2"), List.of("v3"));
+        assertThat(response.getImported()).isEqualTo(5);
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(response.getErrors()).singleElement().asString().startsWith("Line 3: malformed record");
+    }
+
+    @Test
+    @DisplayName("Поле неверного типа в одной строке. Строка пропускается, остальные импортируются.")
+    void typeMismatch_thenSkippedAndImportContinues() throws IOException {
+        //given
+        recordChunks();
+        String body = records(1)
+                + "{\"userRequest\":{\"fullName\":\"bad\",\"title\":\"reader\",\"age\":\"thirty\"}}\n"
+                + "\n"
+                + records("v", 2);
+
+        //when
+        ImportResponse response = facade.importUsersWithBooks(ndjson(body));
+
+        //then
+        assertThat(chunks).containsExactly(List.of("u1", "v1"), List.of("v2"));
+        assertThat(response.getImported()).isEqualTo(3);
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(response.getErrors()).singleElement().asString().startsWith("Line 2: malformed record");
+    }
+
+    @Test
+    @DisplayName("Пустое тело. Ничего не сохраняется.")
+    void emptyBody_thenNothingImported() throws IOException {
+        //when
+        ImportResponse response = facade.importUsersWithBooks(ndjson(""));
+
+        //then
+        assertThat(response.getImported()).isZero();
+        verify(userDataFacade, never()).createUsersWithBooks(anyList());
+    }
+
+    /**
+     * Фасад переиспользует список пачки, поэтому имена запоминаются в момент вызова.
+     */
+    private void recordChunks() {
+        when(userDataFacade.createUsersWithBooks(anyList())).thenAnswer(invocation -> {
+            List<UserBookRequest> chunk = invocation.getArgument(0);
+            chunks.add(chunk.stream().map(record -> record.getUserRequest().getFullName()).toList());
+            return List.of();
+        });
+    }
+
+    private static String records(int count) {
+        return records("u", count);
+    }
+
+    private static String records(String namePrefix, int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> "{\"userRequest\":{\"fullName\":\"" + namePrefix + i + "\",\"title\":\"reader\",\"age\":30},"
+                        + "\"bookRequests\":[{\"title\":\"t\",\"author\":\"a\",\"pageCount\":10}]}")
+                .collect(Collectors.joining("\n", "", "\n"));
+    }
+
+    private static InputStream ndjson(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
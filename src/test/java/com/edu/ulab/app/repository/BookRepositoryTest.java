@@ -12,6 +12,13 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.jdbc.Sql;
 
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
 import static com.vladmihalcea.sql.SQLStatementCountValidator.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -20,10 +27,14 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 @SystemJpaTest
 public class BookRepositoryTest {
+    private static final Pattern PARTITION = Pattern.compile("book_p\\d{2}");
+
     @Autowired
     BookRepository bookRepository;
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    EntityManager entityManager;
 
     @BeforeEach
     void setUp() {
@@ -65,10 +76,76 @@ public class BookRepositoryTest {
         assertDeleteCount(0);
     }
 
-    // update
+    @DisplayName("Получить идентификаторы книг пользователя. Число select должно равняться 1")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql"
+    })
+    void findIdsByPersonId_thenAssertDmlCount() {
+        //Given
+        Integer personId = 1001;
+
+        //When
+        List<Integer> result = bookRepository.findIdsByPersonId(personId);
+
+        //Then
+        assertThat(result).containsExactlyInAnyOrder(2002, 3003);
+        assertSelectCount(1);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(0);
+    }
+
+    @DisplayName("Удалить все книги пользователя. Число delete должно равняться 1")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql"
+    })
+    void deleteAllByPersonId_thenAssertDmlCount() {
+        //Given
+        Integer personId = 1001;
+
+        //When
+        int result = bookRepository.deleteAllByPersonId(personId);
+
+        //Then
+        assertThat(result).isEqualTo(2);
+        assertSelectCount(0);
+        assertInsertCount(0);
+        assertUpdateCount(0);
+        assertDeleteCount(1);
+    }
+
+    @DisplayName("UPDATE книги пользователя в секционированной таблице. План читает одну секцию")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql"
+    })
+    void updateByIdAndPersonId_thenSinglePartition() {
+        //Given
+        // UPDATE из BookServiceImpl.updateBooks с подставленными значениями
+        final String EXPLAIN_SQL = "EXPLAIN UPDATE ulab_edu.book SET title = 'new title', author = 'author', "
+                + "page_count = 100, version = version + 1 WHERE id = 2002 AND person_id = 1001 AND version = 0";
+
+        //When
+        Set<String> partitions = ((List<?>) entityManager.createNativeQuery(EXPLAIN_SQL).getResultList())
+                .stream()
+                .flatMap(line -> PARTITION.matcher(line.toString()).results())
+                .map(MatchResult::group)
+                .collect(Collectors.toSet());
+
+        //Then
+        assertThat(partitions).hasSize(1);
+    }
+
     // get
     // get all
-    // delete
 
     // * failed
 
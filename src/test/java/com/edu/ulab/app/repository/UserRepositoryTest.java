@@ -1,8 +1,11 @@
 package com.edu.ulab.app.repository;
 
 import com.edu.ulab.app.config.SystemJpaTest;
+import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.entity.Person;
 import com.vladmihalcea.sql.SQLStatementCountValidator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +13,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.jdbc.Sql;
 
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
 import static com.vladmihalcea.sql.SQLStatementCountValidator.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -20,6 +26,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class UserRepositoryTest {
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    EntityManager entityManager;
 
     @BeforeEach
     void setUp() {
@@ -51,6 +59,32 @@ public class UserRepositoryTest {
         assertDeleteCount(0);
     }
 
+    @DisplayName("Получить юзера с книгами. Должен выполниться один запрос")
+    @Test
+    @Rollback
+    @Sql({"classpath:sql/1_clear_schema.sql",
+            "classpath:sql/2_insert_person_data.sql",
+            "classpath:sql/3_insert_book_data.sql"
+    })
+    void findWithBooksById_thenAssertStatementCount() {
+        //Given
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        //When
+        Optional<Person> result = userRepository.findWithBooksById(1001);
+
+        //Then
+        assertThat(result).isPresent();
+        assertThat(result.get().getBookSet())
+                .extracting(Book::getId)
+                .containsExactlyInAnyOrder(2002, 3003);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertSelectCount(1);
+    }
+
     // update
     // get
     // get all
@@ -0,0 +1,144 @@
+package com.edu.ulab.app.service;
+
+import com.edu.ulab.app.config.LockingProperties;
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.mapper.BookMapper;
+import com.edu.ulab.app.service.impl.BookServiceImplTemplate;
+import com.edu.ulab.app.service.impl.JdbcSequenceIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тестирование блокировок {@link BookServiceImplTemplate} на базе H2 в памяти.
+ */
+@UnitTest
+@DisplayName("Testing JDBC book locking.")
+public class BookServiceImplTemplateTest {
+    private static final int USER_ID = 1;
+
+    RecordingJdbcTemplate jdbcTemplate;
+    LockingProperties lockingProperties;
+    BookServiceImplTemplate bookService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new RecordingJdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:books-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE SCHEMA ulab_edu");
+        jdbcTemplate.execute("CREATE TABLE ulab_edu.book(id integer primary key, person_id integer not null, "
+                + "title varchar(50) not null, author varchar(50) not null, page_count integer not null, "
+                + "version bigint not null default 0)");
+        jdbcTemplate.execute("CREATE SEQUENCE sequence START WITH 1");
+        lockingProperties = new LockingProperties();
+        bookService = new BookServiceImplTemplate(jdbcTemplate, new JdbcSequenceIdGenerator(jdbcTemplate),
+                Mappers.getMapper(BookMapper.class), lockingProperties);
+    }
+
+    @Test
+    @DisplayName("Обновление книг в пессимистичном режиме. Книги читаются под блокировкой, версия растёт только у изменённых.")
+    void updateBooksPessimistic_thenRowsLockedAndChangedVersionsIncremented() {
+        //given
+        List<BookDto> books = bookService.createBooks(new ArrayList<>(List.of(book(null, "first"), book(null, "second"))));
+        Integer firstId = books.get(0).getId();
+        Integer secondId = books.get(1).getId();
+        jdbcTemplate.queries.clear();
+
+        //when
+        List<Integer> bookIds = bookService.updateBooks(USER_ID,
+                List.of(book(firstId, "renamed"), book(secondId, "second"), book(null, "third")));
+
+        //then
+        assertThat(bookIds).hasSize(3).contains(firstId, secondId);
+        assertThat(jdbcTemplate.queries).singleElement().asString().endsWith("FOR UPDATE");
+        assertThat(version(firstId)).isEqualTo(1);
+        assertThat(version(secondId)).isZero();
+    }
+
+    @Test
+    @DisplayName("Книгу изменили после чтения версий. OptimisticLockingFailureException, чужая запись не перезаписана.")
+    void updateBooksOptimistic_concurrentChange_thenOptimisticLockingFailure() {
+        //given
+        lockingProperties.setMode(LockingProperties.Mode.OPTIMISTIC);
+        Integer bookId = bookService.createBook(book(null, "first")).getId();
+        jdbcTemplate.afterQuery = () -> jdbcTemplate.update(
+                "UPDATE ulab_edu.book SET title = 'concurrent', version = version + 1 WHERE id = ?", bookId);
+        jdbcTemplate.queries.clear();
+
+        //when
+        //then
+        assertThatThrownBy(() -> bookService.updateBooks(USER_ID, List.of(book(bookId, "renamed"))))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(jdbcTemplate.queries).singleElement().asString().doesNotContain("FOR UPDATE");
+        assertThat(title(bookId)).isEqualTo("concurrent");
+    }
+
+    @Test
+    @DisplayName("Одна книга изменена после чтения версии. OptimisticLockingFailureException.")
+    void updateBookOptimistic_concurrentChange_thenOptimisticLockingFailure() {
+        //given
+        lockingProperties.setMode(LockingProperties.Mode.OPTIMISTIC);
+        Integer bookId = bookService.createBook(book(null, "first")).getId();
+        jdbcTemplate.afterQuery = () -> jdbcTemplate.update(
+                "UPDATE ulab_edu.book SET version = version + 1 WHERE id = ?", bookId);
+
+        //when
+        //then
+        assertThatThrownBy(() -> bookService.updateBook(book(bookId, "renamed")))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(title(bookId)).isEqualTo("first");
+    }
+
+    private long version(Integer bookId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM ulab_edu.book WHERE id = ?", Long.class, bookId);
+    }
+
+    private String title(Integer bookId) {
+        return jdbcTemplate.queryForObject("SELECT title FROM ulab_edu.book WHERE id = ?", String.class, bookId);
+    }
+
+    private static BookDto book(Integer id, String title) {
+        return new BookDto(id, USER_ID, title, "author", 100);
+    }
+
+    /**
+     * Запоминает чтения перед обновлением и после чтения выполняет «чужую» запись, если она задана.
+     */
+    static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<String> queries = new ArrayList<>();
+        Runnable afterQuery = () -> {
+        };
+
+        RecordingJdbcTemplate(DriverManagerDataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            List<T> result = super.queryForList(sql, elementType, args);
+            queries.add(sql);
+            afterQuery.run();
+            return result;
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            super.query(sql, rch, args);
+            queries.add(sql);
+            afterQuery.run();
+        }
+    }
+}
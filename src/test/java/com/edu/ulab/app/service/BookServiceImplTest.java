@@ -1,8 +1,10 @@
 package com.edu.ulab.app.service;
 
+import com.edu.ulab.app.config.LockingProperties;
 import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.entity.Book;
 import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.exception.NotFoundException;
 import com.edu.ulab.app.mapper.BookMapper;
 import com.edu.ulab.app.repository.BookRepository;
 import com.edu.ulab.app.service.impl.BookServiceImpl;
@@ -10,13 +12,29 @@ import com.edu.ulab.app.service.impl.UserServiceImpl;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.EntityManager;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -35,6 +53,15 @@ public class BookServiceImplTest {
     @Mock
     BookMapper bookMapper;
 
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    EntityManager entityManager;
+
+    @Spy
+    LockingProperties lockingProperties = new LockingProperties();
+
     @Test
     @DisplayName("Создание книги. Должно пройти успешно.")
     void saveBook_Test() {
@@ -80,6 +107,159 @@ public class BookServiceImplTest {
         assertEquals(1, bookDtoResult.getId());
     }
 
+    @Test
+    @DisplayName("Пакетное создание книг. Должно пройти одним saveAll.")
+    void saveBooks_Test() {
+        //given
+        Person person  = new Person();
+        person.setId(1);
+
+        BookDto bookDto = new BookDto();
+        bookDto.setUserId(1);
+        bookDto.setAuthor("test author");
+        bookDto.setTitle("test title");
+        bookDto.setPageCount(1000);
+
+        Book book = new Book();
+        book.setPageCount(1000);
+        book.setTitle("test title");
+        book.setAuthor("test author");
+        book.setPerson(person);
+
+        Book savedBook = new Book();
+        savedBook.setId(1);
+        savedBook.setPageCount(1000);
+        savedBook.setTitle("test title");
+        savedBook.setAuthor("test author");
+        savedBook.setPerson(person);
+
+        BookDto result = new BookDto();
+        result.setId(1);
+        result.setUserId(1);
+        result.setAuthor("test author");
+        result.setTitle("test title");
+        result.setPageCount(1000);
+
+        //when
+
+        when(bookMapper.bookDtoToBook(bookDto)).thenReturn(book);
+        when(bookRepository.saveAll(List.of(book))).thenReturn(List.of(savedBook));
+        when(bookMapper.booksToBookDtos(List.of(savedBook))).thenReturn(List.of(result));
+
+
+        //then
+        List<BookDto> bookDtoResult = bookService.createBooks(List.of(bookDto));
+        assertEquals(1, bookDtoResult.size());
+        assertEquals(1, bookDtoResult.get(0).getId());
+        verify(bookRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Обновление книг пользователя. Текущие книги читаются один раз, новые сохраняются одним saveAll.")
+    void updateBooks_Test() {
+        //given
+        Person person  = new Person();
+        person.setId(1);
+
+        Book currentBook = new Book();
+        currentBook.setId(2);
+        currentBook.setPageCount(1000);
+        currentBook.setTitle("test title");
+        currentBook.setAuthor("test author");
+        currentBook.setPerson(person);
+
+        BookDto changedBook = new BookDto(2, 1, "new title", "test author", 500);
+        BookDto newBookDto = new BookDto(null, null, "other title", "other author", 100);
+
+        Book newBook = new Book();
+        newBook.setId(3);
+        newBook.setPerson(person);
+
+        //when
+
+        when(bookRepository.findByPersonId(1)).thenReturn(List.of(currentBook));
+        when(jdbcTemplate.batchUpdate(anyString(), eq(List.of(changedBook)), eq(1), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+        when(bookMapper.bookDtoToBook(newBookDto)).thenReturn(newBook);
+
+
+        //then
+        List<Integer> bookIdList = bookService.updateBooks(1, List.of(changedBook, newBookDto));
+        assertEquals(List.of(2, 3), bookIdList);
+        assertEquals(1, newBookDto.getUserId());
+        verify(entityManager).detach(currentBook);
+        verify(bookRepository).saveAll(List.of(newBook));
+        verify(bookRepository, never()).findByIdForUpdate(any(), any());
+    }
+
+    @Test
+    @DisplayName("Обновление книг без изменений. UPDATE не выполняется.")
+    void updateBooks_Unchanged_Test() {
+        //given
+        Person person  = new Person();
+        person.setId(1);
+
+        Book currentBook = new Book();
+        currentBook.setId(2);
+        currentBook.setPageCount(1000);
+        currentBook.setTitle("test title");
+        currentBook.setAuthor("test author");
+        currentBook.setPerson(person);
+
+        BookDto sameBook = new BookDto(2, 1, "test title", "test author", 1000);
+
+        //when
+
+        when(bookRepository.findByPersonId(1)).thenReturn(List.of(currentBook));
+
+
+        //then
+        assertEquals(List.of(2), bookService.updateBooks(1, List.of(sameBook)));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @DisplayName("Книгу изменили после чтения. Должно завершиться OptimisticLockingFailureException.")
+    void updateBooks_ConcurrentlyModified_Test() {
+        //given
+        Person person  = new Person();
+        person.setId(1);
+
+        Book currentBook = new Book();
+        currentBook.setId(2);
+        currentBook.setPageCount(1000);
+        currentBook.setTitle("test title");
+        currentBook.setAuthor("test author");
+        currentBook.setPerson(person);
+
+        BookDto changedBook = new BookDto(2, 1, "new title", "test author", 1000);
+
+        //when
+
+        when(bookRepository.findByPersonId(1)).thenReturn(List.of(currentBook));
+        when(jdbcTemplate.batchUpdate(anyString(), eq(List.of(changedBook)), eq(1), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}});
+
+
+        //then
+        assertThrows(OptimisticLockingFailureException.class, () -> bookService.updateBooks(1, List.of(changedBook)));
+    }
+
+    @Test
+    @DisplayName("Обновление чужой книги. Должно завершиться NotFoundException.")
+    void updateBooks_ForeignBook_Test() {
+        //given
+        BookDto foreignBook = new BookDto(5, 1, "test title", "test author", 1000);
+
+        //when
+
+        when(bookRepository.findByPersonId(1)).thenReturn(List.of());
+
+
+        //then
+        assertThrows(NotFoundException.class, () -> bookService.updateBooks(1, List.of(foreignBook)));
+        verify(bookRepository, never()).saveAll(any());
+    }
 
     // update
     // get
@@ -0,0 +1,136 @@
+package com.edu.ulab.app.service;
+
+import com.edu.ulab.app.config.HibernateCacheConfig;
+import com.edu.ulab.app.config.LockingProperties;
+import com.edu.ulab.app.dto.BookDto;
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.mapper.BookMapperImpl;
+import com.edu.ulab.app.repository.BookRepository;
+import com.edu.ulab.app.repository.UserRepository;
+import com.edu.ulab.app.service.impl.BookServiceImpl;
+import com.vladmihalcea.sql.SQLStatementCountValidator;
+import net.ttddyy.dsproxy.listener.DataSourceQueryCountListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static com.vladmihalcea.sql.SQLStatementCountValidator.assertInsertCount;
+import static com.vladmihalcea.sql.SQLStatementCountValidator.assertSelectCount;
+import static com.vladmihalcea.sql.SQLStatementCountValidator.assertUpdateCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование {@link BookServiceImpl#updateBooks} на базе H2 в памяти с кэшем второго уровня:
+ * запросы считаются через datasource-proxy, пакет JDBC считается одним UPDATE.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "app.cache.hibernate.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = {BookServiceImplUpdateTest.TestConfig.class, HibernateCacheConfig.class,
+        BookServiceImpl.class, BookMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Testing batched book update.")
+public class BookServiceImplUpdateTest {
+    private static final int BOOKS = 5;
+
+    @Autowired
+    BookService bookService;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Обновление пяти изменённых и одной неизменной книги. Один select и один пакетный UPDATE.")
+    void changedBooks_thenSingleBatchedUpdate() {
+        //given
+        Person person = userRepository.save(person());
+        List<Book> books = IntStream.rangeClosed(0, BOOKS)
+                .mapToObj(i -> bookRepository.save(book(person, "title " + i)))
+                .toList();
+        books.forEach(book -> bookRepository.findById(book.getId()));
+        List<BookDto> request = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            request.add(new BookDto(books.get(i).getId(), person.getId(), "new title " + i, "author", 200));
+        }
+        request.add(new BookDto(books.get(BOOKS).getId(), person.getId(), "title " + BOOKS, "author", 100));
+        SQLStatementCountValidator.reset();
+
+        //when
+        List<Integer> bookIds = new TransactionTemplate(transactionManager)
+                .execute(status -> bookService.updateBooks(person.getId(), request));
+
+        //then
+        assertThat(bookIds).containsExactlyElementsOf(books.stream().map(Book::getId).sorted().toList());
+        assertSelectCount(1);
+        assertUpdateCount(1);
+        assertInsertCount(0);
+        for (int i = 0; i < BOOKS; i++) {
+            Book updated = bookRepository.findById(books.get(i).getId()).orElseThrow();
+            assertThat(updated.getTitle()).isEqualTo("new title " + i);
+            assertThat(updated.getVersion()).isEqualTo(books.get(i).getVersion() + 1);
+        }
+        assertThat(bookRepository.findById(books.get(BOOKS).getId()).orElseThrow().getVersion())
+                .isEqualTo(books.get(BOOKS).getVersion());
+    }
+
+    @EntityScan(basePackageClasses = Person.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    @EnableConfigurationProperties(LockingProperties.class)
+    static class TestConfig {
+        @Bean
+        DataSource dataSource() {
+            return ProxyDataSourceBuilder
+                    .create(new DriverManagerDataSource("jdbc:h2:mem:books-" + UUID.randomUUID()
+                            + ";DB_CLOSE_DELAY=-1", "sa", ""))
+                    .listener(new DataSourceQueryCountListener())
+                    .build();
+        }
+    }
+
+    private static Book book(Person person, String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("author");
+        book.setPageCount(100);
+        book.setPerson(person);
+        return book;
+    }
+
+    private static Person person() {
+        Person person = new Person();
+        person.setFullName("test name");
+        person.setTitle("reader");
+        person.setAge(11);
+        return person;
+    }
+}
@@ -0,0 +1,263 @@
+package com.edu.ulab.app.service;
+
+import com.edu.ulab.app.config.IdempotencyProperties;
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.exception.IdempotencyKeyReusedException;
+import com.edu.ulab.app.exception.RequestInProgressException;
+import com.edu.ulab.app.repository.IdempotencyKeyRepository;
+import com.edu.ulab.app.repository.IdempotencyKeyRepository.StoredResponse;
+import com.edu.ulab.app.service.impl.IdempotencyServiceImpl;
+import com.edu.ulab.app.web.response.UserBookResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестирование функционала {@link IdempotencyServiceImpl}: без таблицы ключей и с таблицей-заглушкой.
+ */
+@UnitTest
+@DisplayName("Testing idempotent create.")
+public class IdempotencyServiceImplTest {
+    private static final String HASH = IdempotencyService.requestHash("POST", "/create", bytes("{\"id\":1}"));
+    private static final String OTHER_HASH = IdempotencyService.requestHash("POST", "/create", bytes("{\"id\":2}"));
+
+    @Mock
+    IdempotencyKeyRepository keyRepository;
+
+    IdempotencyProperties properties;
+    SimpleMeterRegistry meterRegistry;
+    IdempotencyService idempotencyService;
+    AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        idempotencyService = new IdempotencyServiceImpl(properties,
+                beanFactory.getBeanProvider(IdempotencyKeyRepository.class),
+                beanFactory.getBeanProvider(TransactionTemplate.class),
+                meterRegistry);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Повтор запроса с тем же rqid. Возвращается исходный ответ без повторного создания.")
+    void repeatedRequest_thenReplayed() {
+        //given
+        Supplier<UserBookResponse> create = () -> response(executions.incrementAndGet());
+
+        //when
+        UserBookResponse first = idempotencyService.execute("rq-1", HASH, create);
+        UserBookResponse replayed = idempotencyService.execute("rq-1", HASH, create);
+
+        //then
+        assertThat(replayed).isEqualTo(first);
+        assertThat(executions).hasValue(1);
+        assertThat(meterRegistry.get(IdempotencyService.REPLAYS_METRIC).tag("tier", "memory").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Пустой rqid. Каждый запрос выполняется.")
+    void blankRequestId_thenExecutedEveryTime() {
+        //given
+        Supplier<UserBookResponse> create = () -> response(executions.incrementAndGet());
+
+        //when
+        idempotencyService.execute("", HASH, create);
+        idempotencyService.execute("", HASH, create);
+
+        //then
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Повтор во время выполнения исходного запроса. Ждёт и получает его ответ.")
+    void concurrentRepeat_thenExecutedOnce() throws Exception {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<UserBookResponse> create = () -> {
+            started.countDown();
+            await(release);
+            return response(executions.incrementAndGet());
+        };
+
+        //when
+        CompletableFuture<UserBookResponse> first =
+                CompletableFuture.supplyAsync(() -> idempotencyService.execute("rq-2", HASH, create));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<UserBookResponse> repeated =
+                CompletableFuture.supplyAsync(() -> idempotencyService.execute("rq-2", HASH, create));
+        release.countDown();
+
+        //then
+        assertThat(repeated.get(5, TimeUnit.SECONDS)).isEqualTo(first.get(5, TimeUnit.SECONDS));
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Исходный запрос завершился ошибкой. Повтор выполняется заново.")
+    void failedRequest_thenNotRemembered() {
+        //given
+        Supplier<UserBookResponse> failing = () -> {
+            throw new IllegalStateException("database is down");
+        };
+
+        //when
+        assertThatThrownBy(() -> idempotencyService.execute("rq-3", HASH, failing))
+                .isInstanceOf(IllegalStateException.class);
+        UserBookResponse response = idempotencyService.execute("rq-3", HASH, () -> response(executions.incrementAndGet()));
+
+        //then
+        assertThat(response.getUserId()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Тот же rqid с другим запросом. Должно завершиться IdempotencyKeyReusedException без создания.")
+    void reusedKeyWithAnotherRequest_thenRejected() {
+        //given
+        Supplier<UserBookResponse> create = () -> response(executions.incrementAndGet());
+        idempotencyService.execute("rq-4", HASH, create);
+
+        //then
+        assertThatThrownBy(() -> idempotencyService.execute("rq-4", OTHER_HASH, create))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Тот же rqid с другим запросом во время выполнения исходного. Отклоняется сразу, без ожидания.")
+    void reusedKeyWhileInFlight_thenRejected() throws Exception {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<UserBookResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("rq-5", HASH, () -> {
+                    started.countDown();
+                    await(release);
+                    return response(executions.incrementAndGet());
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //then
+        assertThatThrownBy(() -> idempotencyService.execute("rq-5", OTHER_HASH, () -> response(42)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getUserId()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Исходный запрос выполняется дольше in-flight-timeout. Повтор получает RequestInProgressException.")
+    void inFlightTimeout_thenRetryableError() throws Exception {
+        //given
+        properties.setInFlightTimeout(Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<UserBookResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("rq-6", HASH, () -> {
+                    started.countDown();
+                    await(release);
+                    return response(executions.incrementAndGet());
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //then
+        assertThatThrownBy(() -> idempotencyService.execute("rq-6", HASH, () -> response(42)))
+                .isInstanceOfSatisfying(RequestInProgressException.class,
+                        e -> assertThat(e.getRetryAfter()).isPositive());
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(idempotencyService.execute("rq-6", HASH, () -> response(42)).getUserId()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ключ в таблице записан другим запросом. Должно завершиться IdempotencyKeyReusedException.")
+    void storedKeyWithAnotherRequest_thenRejected() {
+        //given
+        IdempotencyService service = serviceWithTable();
+        when(keyRepository.findResponse(eq("rq-7"), any()))
+                .thenReturn(Optional.of(new StoredResponse(response(7), OTHER_HASH)));
+
+        //then
+        assertThatThrownBy(() -> service.execute("rq-7", HASH, () -> response(executions.incrementAndGet())))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Ключ в таблице записан до появления хэша. Ответ возвращается без сверки.")
+    void storedKeyWithoutHash_thenReplayed() {
+        //given
+        IdempotencyService service = serviceWithTable();
+        when(keyRepository.findResponse(eq("rq-8"), any()))
+                .thenReturn(Optional.of(new StoredResponse(response(8), null)));
+
+        //when
+        UserBookResponse response = service.execute("rq-8", HASH, () -> response(executions.incrementAndGet()));
+
+        //then
+        assertThat(response.getUserId()).isEqualTo(8);
+        assertThat(meterRegistry.get(IdempotencyService.REPLAYS_METRIC).tag("tier", "table").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Хэш запроса. Зависит от метода, пути и тела.")
+    void requestHash_thenDependsOnMethodPathAndBody() {
+        assertThat(IdempotencyService.requestHash("POST", "/create", bytes("{\"id\":1}"))).isEqualTo(HASH);
+        assertThat(HASH).isNotEqualTo(OTHER_HASH)
+                .isNotEqualTo(IdempotencyService.requestHash("PUT", "/create", bytes("{\"id\":1}")))
+                .isNotEqualTo(IdempotencyService.requestHash("POST", "/update", bytes("{\"id\":1}")))
+                .hasSize(64);
+    }
+
+    private IdempotencyService serviceWithTable() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("keyRepository", keyRepository);
+        return new IdempotencyServiceImpl(properties,
+                beanFactory.getBeanProvider(IdempotencyKeyRepository.class),
+                beanFactory.getBeanProvider(TransactionTemplate.class),
+                meterRegistry);
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static UserBookResponse response(int userId) {
+        return UserBookResponse.builder()
+                .userId(userId)
+                .booksIdList(List.of(userId * 10))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.edu.ulab.app.service;
+
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.service.impl.JdbcSequenceIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование функционала {@link JdbcSequenceIdGenerator} на базе H2 в памяти.
+ */
+@UnitTest
+@DisplayName("Testing JDBC hi/lo id allocation.")
+public class JdbcSequenceIdGeneratorTest {
+    private static final int ALLOCATION_SIZE = 100;
+
+    JdbcTemplate jdbcTemplate;
+    JdbcSequenceIdGenerator idGenerator;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:sequence-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE SEQUENCE sequence START WITH 1");
+        idGenerator = new JdbcSequenceIdGenerator(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Выдача идентификаторов. Блок значения последовательности n - n * 100 .. n * 100 + 99, как у hi/lo Hibernate.")
+    void nextIds_thenHiLoBlocks() {
+        //when
+        List<Integer> first = idGenerator.nextIds(3);
+        List<Integer> second = idGenerator.nextIds(ALLOCATION_SIZE);
+        Integer next = idGenerator.nextId();
+
+        //then
+        assertThat(first).containsExactly(100, 101, 102);
+        assertThat(second).hasSize(ALLOCATION_SIZE).startsWith(103).endsWith(202);
+        assertThat(next).isEqualTo(203);
+        assertThat(sequenceValuesUsed()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Одновременные запросы идентификаторов. Все различны, блоки расходуются без пропусков.")
+    void concurrentAllocation_thenUniqueIdsAndNoWastedBlocks() throws Exception {
+        //given
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<List<Integer>>> allocations = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            allocations.add(CompletableFuture.supplyAsync(() -> {
+                await(start);
+                List<Integer> ids = new ArrayList<>();
+                for (int call = 0; call < 50; call++) {
+                    ids.addAll(idGenerator.nextIds(ThreadLocalRandom.current().nextInt(1, 40)));
+                    ids.add(idGenerator.nextId());
+                }
+                return ids;
+            }, executor));
+        }
+
+        //when
+        start.countDown();
+        List<Integer> ids = new ArrayList<>();
+        for (CompletableFuture<List<Integer>> allocation : allocations) {
+            ids.addAll(allocation.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        //then
+        Set<Integer> unique = new HashSet<>(ids);
+        assertThat(unique).hasSameSizeAs(ids);
+        assertThat(sequenceValuesUsed()).isEqualTo((ids.size() + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE);
+        assertThat(unique).allMatch(id -> id >= ALLOCATION_SIZE && id < ALLOCATION_SIZE * (sequenceValuesUsed() + 1));
+    }
+
+    /**
+     * Следующее значение последовательности минус один - сколько значений уже выдано.
+     */
+    private int sequenceValuesUsed() {
+        Integer next = jdbcTemplate.queryForObject("SELECT nextval('sequence')", Integer.class);
+        jdbcTemplate.execute("ALTER SEQUENCE sequence RESTART WITH " + next);
+        return next - 1;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
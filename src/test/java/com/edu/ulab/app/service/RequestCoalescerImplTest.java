@@ -0,0 +1,157 @@
+package com.edu.ulab.app.service;
+
+import com.edu.ulab.app.config.CoalescingProperties;
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.service.impl.RequestCoalescerImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тестирование функционала {@link RequestCoalescerImpl}.
+ */
+@UnitTest
+@DisplayName("Testing request coalescing.")
+public class RequestCoalescerImplTest {
+    SimpleMeterRegistry meterRegistry;
+    CoalescingProperties properties;
+    RequestCoalescer requestCoalescer;
+    AtomicInteger loads;
+    CountDownLatch started;
+    CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CoalescingProperties();
+        requestCoalescer = new RequestCoalescerImpl(properties, meterRegistry);
+        loads = new AtomicInteger();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    @Test
+    @DisplayName("Запрос того же ключа во время загрузки. Получает её результат без второй загрузки.")
+    void concurrentLoad_thenLoadedOnce() throws Exception {
+        //given
+        Supplier<Integer> load = () -> {
+            started.countDown();
+            await(release);
+            return loads.incrementAndGet();
+        };
+
+        //when
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> requestCoalescer.execute("get", 1, load));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> requestCoalescer.execute("get", 1, load));
+        waitForWaiter();
+        release.countDown();
+
+        //then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get(RequestCoalescer.COALESCED_METRIC).tag("outcome", "shared").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Загрузка завершилась ошибкой. Ожидающий получает ту же ошибку, следующий вызов загружает заново.")
+    void failedLoad_thenErrorSharedAndNotRemembered() throws Exception {
+        //given
+        Supplier<Integer> failing = () -> {
+            started.countDown();
+            await(release);
+            throw new NotFoundException("No user with id: 1");
+        };
+
+        //when
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> requestCoalescer.execute("get", 1, failing));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> requestCoalescer.execute("get", 1, failing));
+        waitForWaiter();
+        release.countDown();
+
+        //then
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(NotFoundException.class);
+        assertThat(requestCoalescer.execute("get", 1, loads::incrementAndGet)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Загрузка дольше timeout. Ожидающий загружает сам.")
+    void slowLoad_thenWaiterLoadsItself() throws Exception {
+        //given
+        properties.setTimeout(Duration.ofMillis(50));
+        Supplier<Integer> slow = () -> {
+            started.countDown();
+            await(release);
+            return -1;
+        };
+
+        //when
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> requestCoalescer.execute("get", 1, slow));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Integer second = requestCoalescer.execute("get", 1, loads::incrementAndGet);
+        release.countDown();
+
+        //then
+        assertThat(second).isEqualTo(1);
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(-1);
+        assertThat(meterRegistry.get(RequestCoalescer.COALESCED_METRIC).tag("outcome", "timeout").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Загрузка отцеплена. Следующий вызов загружает заново, а не получает её результат.")
+    void detachedLoad_thenNextCallLoadsAgain() throws Exception {
+        //given
+        Supplier<Integer> stale = () -> {
+            started.countDown();
+            await(release);
+            return -1;
+        };
+
+        //when
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> requestCoalescer.execute("get", 1, stale));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        requestCoalescer.detach("get", 1);
+        Integer second = requestCoalescer.execute("get", 1, loads::incrementAndGet);
+        release.countDown();
+
+        //then
+        assertThat(second).isEqualTo(1);
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(-1);
+        assertThat(meterRegistry.find(RequestCoalescer.COALESCED_METRIC).counter()).isNull();
+    }
+
+    /**
+     * Второй вызов не наблюдаем снаружи, пока ждёт: даём ему время встать в ожидание.
+     */
+    private static void waitForWaiter() throws InterruptedException {
+        Thread.sleep(200);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
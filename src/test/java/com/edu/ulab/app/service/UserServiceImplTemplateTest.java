@@ -0,0 +1,126 @@
+package com.edu.ulab.app.service;
+
+import com.edu.ulab.app.config.LockingProperties;
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.dto.UserDto;
+import com.edu.ulab.app.exception.NotFoundException;
+import com.edu.ulab.app.mapper.UserMapper;
+import com.edu.ulab.app.service.impl.JdbcSequenceIdGenerator;
+import com.edu.ulab.app.service.impl.UserServiceImplTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тестирование блокировок {@link UserServiceImplTemplate} на базе H2 в памяти.
+ */
+@UnitTest
+@DisplayName("Testing JDBC user locking.")
+public class UserServiceImplTemplateTest {
+    RecordingJdbcTemplate jdbcTemplate;
+    LockingProperties lockingProperties;
+    UserServiceImplTemplate userService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new RecordingJdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:users-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE SCHEMA ulab_edu");
+        jdbcTemplate.execute("CREATE TABLE ulab_edu.person(id integer primary key, full_name varchar(50) not null, "
+                + "title varchar(50) not null unique, age integer not null, version bigint not null default 0)");
+        jdbcTemplate.execute("CREATE SEQUENCE sequence START WITH 1");
+        lockingProperties = new LockingProperties();
+        userService = new UserServiceImplTemplate(jdbcTemplate, new JdbcSequenceIdGenerator(jdbcTemplate),
+                Mappers.getMapper(UserMapper.class), lockingProperties);
+    }
+
+    @Test
+    @DisplayName("Обновление в пессимистичном режиме. Версия читается под блокировкой строки и растёт.")
+    void updateUserPessimistic_thenRowLockedAndVersionIncremented() {
+        //given
+        UserDto user = userService.createUser(user("reader"));
+        jdbcTemplate.queries.clear();
+
+        //when
+        userService.updateUser(user("writer", user.getId()));
+
+        //then
+        assertThat(jdbcTemplate.queries).singleElement().asString().endsWith("FOR UPDATE");
+        assertThat(userService.getUserById(user.getId()).getTitle()).isEqualTo("writer");
+        assertThat(version(user.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Пользователя изменили после чтения версии. OptimisticLockingFailureException, чужая запись не перезаписана.")
+    void updateUserOptimistic_concurrentChange_thenOptimisticLockingFailure() {
+        //given
+        lockingProperties.setMode(LockingProperties.Mode.OPTIMISTIC);
+        UserDto user = userService.createUser(user("reader"));
+        jdbcTemplate.afterQuery = () -> jdbcTemplate.update(
+                "UPDATE ulab_edu.person SET title = 'concurrent', version = version + 1 WHERE id = ?", user.getId());
+        jdbcTemplate.queries.clear();
+
+        //when
+        //then
+        assertThatThrownBy(() -> userService.updateUser(user("writer", user.getId())))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(jdbcTemplate.queries).singleElement().asString().doesNotContain("FOR UPDATE");
+        assertThat(userService.getUserById(user.getId()).getTitle()).isEqualTo("concurrent");
+    }
+
+    @Test
+    @DisplayName("Обновление несуществующего пользователя. NotFoundException.")
+    void updateMissingUser_thenNotFound() {
+        assertThatThrownBy(() -> userService.updateUser(user("writer", -1)))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private long version(Integer userId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM ulab_edu.person WHERE id = ?", Long.class, userId);
+    }
+
+    private static UserDto user(String title) {
+        return user(title, null);
+    }
+
+    private static UserDto user(String title, Integer id) {
+        UserDto user = new UserDto();
+        user.setId(id);
+        user.setFullName("test name");
+        user.setTitle(title);
+        user.setAge(33);
+        return user;
+    }
+
+    /**
+     * Запоминает чтения версий и после чтения выполняет «чужую» запись, если она задана.
+     */
+    static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<String> queries = new ArrayList<>();
+        Runnable afterQuery = () -> {
+        };
+
+        RecordingJdbcTemplate(DriverManagerDataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            List<T> result = super.queryForList(sql, elementType, args);
+            queries.add(sql);
+            afterQuery.run();
+            return result;
+        }
+    }
+}
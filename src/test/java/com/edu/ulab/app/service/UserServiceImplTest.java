@@ -1,5 +1,6 @@
 package com.edu.ulab.app.service;
 
+import com.edu.ulab.app.config.LockingProperties;
 import com.edu.ulab.app.dto.BookDto;
 import com.edu.ulab.app.dto.UserDto;
 import com.edu.ulab.app.entity.Book;
@@ -12,11 +13,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -35,6 +42,9 @@ public class UserServiceImplTest {
     @Mock
     UserMapper userMapper;
 
+    @Spy
+    LockingProperties lockingProperties = new LockingProperties();
+
     @Test
     @DisplayName("Создание пользователя. Должно пройти успешно.")
     void savePerson_Test() {
@@ -76,6 +86,75 @@ public class UserServiceImplTest {
         assertEquals(1, userDtoResult.getId());
     }
 
+    @Test
+    @DisplayName("Обновление пользователя в пессимистичном режиме. Строка читается с блокировкой.")
+    void updatePerson_Pessimistic_Test() {
+        //given
+        UserDto userDto = new UserDto();
+        userDto.setId(1);
+        userDto.setAge(12);
+        userDto.setFullName("new name");
+        userDto.setTitle("test title");
+
+        Person person = personOf(userDto);
+        Person personSource = new Person();
+        personSource.setId(1);
+
+        //when
+
+        when(userMapper.userDtoToPerson(userDto)).thenReturn(person);
+        when(userRepository.findByIdForUpdate(1)).thenReturn(Optional.of(personSource));
+        when(userRepository.save(personSource)).thenReturn(personSource);
+        when(userMapper.personToUserDto(personSource)).thenReturn(userDto);
+
+
+        //then
+
+        userService.updateUser(userDto);
+        assertEquals("new name", personSource.getFullName());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Обновление пользователя в оптимистичном режиме. Строка читается без блокировки.")
+    void updatePerson_Optimistic_Test() {
+        //given
+        lockingProperties.setMode(LockingProperties.Mode.OPTIMISTIC);
+
+        UserDto userDto = new UserDto();
+        userDto.setId(1);
+        userDto.setAge(12);
+        userDto.setFullName("new name");
+        userDto.setTitle("test title");
+
+        Person person = personOf(userDto);
+        Person personSource = new Person();
+        personSource.setId(1);
+
+        //when
+
+        when(userMapper.userDtoToPerson(userDto)).thenReturn(person);
+        when(userRepository.findById(1)).thenReturn(Optional.of(personSource));
+        when(userRepository.save(personSource)).thenReturn(personSource);
+        when(userMapper.personToUserDto(personSource)).thenReturn(userDto);
+
+
+        //then
+
+        userService.updateUser(userDto);
+        assertEquals("new name", personSource.getFullName());
+        verify(userRepository, never()).findByIdForUpdate(any());
+    }
+
+    private static Person personOf(UserDto userDto) {
+        Person person = new Person();
+        person.setId(userDto.getId());
+        person.setFullName(userDto.getFullName());
+        person.setAge(userDto.getAge());
+        person.setTitle(userDto.getTitle());
+        return person;
+    }
+
     // update
     // get
     // get all
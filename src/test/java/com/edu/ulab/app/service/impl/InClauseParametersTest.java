@@ -0,0 +1,40 @@
+package com.edu.ulab.app.service.impl;
+
+import com.edu.ulab.app.config.UnitTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование функционала {@link InClauseParameters}.
+ */
+@UnitTest
+@DisplayName("Testing IN clause parameter padding.")
+public class InClauseParametersTest {
+
+    @Test
+    @DisplayName("Число значений не степень двойки. Дополняется повтором последнего значения.")
+    void notPowerOfTwo_thenPaddedWithLastValue() {
+        //when
+        Object[] parameters = InClauseParameters.padded(List.of(1, 2, 3, 4, 5));
+
+        //then
+        assertThat(parameters).containsExactly(1, 2, 3, 4, 5, 5, 5, 5);
+        assertThat(InClauseParameters.placeholders(parameters.length)).isEqualTo("?,?,?,?,?,?,?,?");
+    }
+
+    @Test
+    @DisplayName("Число значений - степень двойки. Параметры не меняются.")
+    void powerOfTwo_thenUnchanged() {
+        //when
+        Object[] single = InClauseParameters.padded(List.of(7));
+        Object[] four = InClauseParameters.padded(List.of(1, 2, 3, 4));
+
+        //then
+        assertThat(single).containsExactly(7);
+        assertThat(four).containsExactly(1, 2, 3, 4);
+    }
+}
@@ -0,0 +1,292 @@
+package com.edu.ulab.app.storage;
+
+import com.edu.ulab.app.config.UnitTest;
+import com.edu.ulab.app.entity.Book;
+import com.edu.ulab.app.entity.Person;
+import com.edu.ulab.app.exception.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тестирование функционала {@link Storage}.
+ */
+@UnitTest
+@DisplayName("Testing storage functionality.")
+public class StorageTest {
+    Storage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new Storage();
+    }
+
+    @Test
+    @DisplayName("Сохранение книг пользователя. Книги доступны по индексу пользователя.")
+    void saveBooks_thenFindByPersonId() {
+        //given
+        Person person = storage.savePerson(person("reader"));
+        Person other = storage.savePerson(person("writer"));
+
+        //when
+        Book first = storage.saveBook(book(person));
+        Book second = storage.saveBook(book(person));
+        storage.saveBook(book(other));
+
+        //then
+        assertThat(person.getId()).isNotNull();
+        assertThat(storage.findBookIdsByPersonId(person.getId()))
+                .containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя. Книги пользователя удаляются каскадно.")
+    void deletePerson_thenBooksDeleted() {
+        //given
+        Person person = storage.savePerson(person("reader"));
+        Book book = storage.saveBook(book(person));
+
+        //when
+        storage.deletePersonById(person.getId());
+
+        //then
+        assertThat(storage.findPersonById(person.getId())).isEmpty();
+        assertThat(storage.findBookById(book.getId())).isEmpty();
+        assertThat(storage.findBookIdsByPersonId(person.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Сохранение книги без пользователя. Должно завершиться ошибкой.")
+    void saveBookWithoutPerson_thenFailed() {
+        //given
+        Person person = person("reader");
+        person.setId(42);
+
+        //then
+        assertThatThrownBy(() -> storage.saveBook(book(person)))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("No user with id: 42");
+    }
+
+    @Test
+    @DisplayName("Постраничная выборка всех книг. Страницы по возрастанию id без пропусков и повторов.")
+    void findBooksAfter_thenKeysetPages() {
+        //given
+        Person person = storage.savePerson(person("reader"));
+        Person other = storage.savePerson(person("writer"));
+        List<Integer> bookIds = List.of(
+                storage.saveBook(book(person)).getId(),
+                storage.saveBook(book(other)).getId(),
+                storage.saveBook(book(person)).getId());
+
+        //when
+        List<Book> first = storage.findBooksAfter(0, 2);
+        List<Book> second = storage.findBooksAfter(first.get(first.size() - 1).getId(), 2);
+
+        //then
+        assertThat(first).extracting(Book::getId).containsExactlyElementsOf(bookIds.subList(0, 2));
+        assertThat(second).extracting(Book::getId).containsExactly(bookIds.get(2));
+        assertThat(storage.streamBooks()).extracting(Book::getId).containsExactlyElementsOf(bookIds);
+    }
+
+    @Test
+    @DisplayName("Сохранение с явным идентификатором. Сгенерированный после него идентификатор больше.")
+    void saveWithExplicitId_thenGeneratedIdAfterIt() {
+        //given
+        Person explicit = person("reader");
+        explicit.setId(100);
+        storage.savePerson(explicit);
+
+        //when
+        Person generated = storage.savePerson(person("writer"));
+        Book book = storage.saveBook(book(generated));
+
+        //then
+        assertThat(generated.getId()).isEqualTo(101);
+        assertThat(book.getId()).isEqualTo(102);
+        assertThat(storage.findPersonById(100)).contains(explicit);
+    }
+
+    @Test
+    @DisplayName("Сохранение книг параллельно с удалением пользователя. Книги удалённого пользователя не остаются.")
+    void saveBooksConcurrentlyWithDelete_thenNoOrphans() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            //given
+            Person person = storage.savePerson(person("reader"));
+            CountDownLatch start = new CountDownLatch(1);
+            CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+                await(start);
+                for (int i = 0; i < 20; i++) {
+                    try {
+                        storage.saveBook(book(person));
+                    } catch (NotFoundException e) {
+                        return;
+                    }
+                }
+            });
+
+            //when
+            start.countDown();
+            storage.deletePersonById(person.getId());
+            writer.get(5, TimeUnit.SECONDS);
+
+            //then
+            assertThat(storage.findBookIdsByPersonId(person.getId())).isEmpty();
+            assertThat(storage.streamBooks()).noneMatch(book -> book.getPerson().getId().equals(person.getId()));
+        }
+    }
+
+    @Test
+    @DisplayName("Перенос книги к другому пользователю. Книга остаётся только в индексе нового владельца.")
+    void moveBook_thenIndexedOnlyByNewOwner() {
+        //given
+        Person person = storage.savePerson(person("reader"));
+        Person other = storage.savePerson(person("writer"));
+        Book book = storage.saveBook(book(person));
+
+        //when
+        Book moved = book(other);
+        moved.setId(book.getId());
+        storage.saveBook(moved);
+
+        //then
+        assertThat(storage.findBookIdsByPersonId(person.getId())).isEmpty();
+        assertThat(storage.findBookIdsByPersonId(other.getId())).containsExactly(book.getId());
+        assertThat(storage.findBookById(book.getId())).contains(moved);
+    }
+
+    @Test
+    @DisplayName("Параллельные переносы и удаление книги. Индексы согласованы с владельцем книги.")
+    void moveBookConcurrently_thenIndexConsistent() throws Exception {
+        Person person = storage.savePerson(person("reader"));
+        Person other = storage.savePerson(person("writer"));
+        for (int round = 0; round < 200; round++) {
+            //given
+            Integer bookId = storage.saveBook(book(person)).getId();
+            CountDownLatch start = new CountDownLatch(1);
+            CompletableFuture<Void> toOther = moveRepeatedly(start, bookId, other);
+            CompletableFuture<Void> toPerson = moveRepeatedly(start, bookId, person);
+
+            //when
+            start.countDown();
+            toOther.get(5, TimeUnit.SECONDS);
+            toPerson.get(5, TimeUnit.SECONDS);
+            Person owner = storage.findBookById(bookId).orElseThrow().getPerson();
+            Person notOwner = owner == person ? other : person;
+
+            //then
+            assertThat(storage.findBookIdsByPersonId(owner.getId())).contains(bookId);
+            assertThat(storage.findBookIdsByPersonId(notOwner.getId())).doesNotContain(bookId);
+
+            //when
+            CompletableFuture<Void> mover = moveRepeatedly(new CountDownLatch(0), bookId, notOwner);
+            storage.deleteBookById(bookId);
+            mover.get(5, TimeUnit.SECONDS);
+            storage.deleteBookById(bookId);
+
+            //then
+            assertThat(storage.findBookById(bookId)).isEmpty();
+            assertThat(storage.findBookIdsByPersonId(person.getId())).doesNotContain(bookId);
+            assertThat(storage.findBookIdsByPersonId(other.getId())).doesNotContain(bookId);
+        }
+    }
+
+    @Test
+    @DisplayName("Замена книги. Хранится новый объект, прочитанный ранее не меняется.")
+    void replaceBook_thenStoredCopyReplaced() {
+        //given
+        Person person = storage.savePerson(person("reader"));
+        Book stored = storage.saveBook(book(person));
+        Book updated = book(person);
+        updated.setId(stored.getId());
+        updated.setTitle("new title");
+
+        //when
+        storage.replaceBook(updated);
+
+        //then
+        assertThat(stored.getTitle()).isEqualTo("test title");
+        assertThat(storage.findBookById(stored.getId())).contains(updated);
+        assertThat(storage.findBookIdsByPersonId(person.getId())).containsExactly(stored.getId());
+    }
+
+    @Test
+    @DisplayName("Замена чужой или отсутствующей книги. Должна завершиться ошибкой, книга не меняется.")
+    void replaceBookOfOtherPerson_thenFailed() {
+        //given
+        Person person = storage.savePerson(person("reader"));
+        Person other = storage.savePerson(person("writer"));
+        Book stored = storage.saveBook(book(person));
+        Book foreign = book(other);
+        foreign.setId(stored.getId());
+        Book missing = book(person);
+        missing.setId(stored.getId() + 100);
+
+        //then
+        assertThatThrownBy(() -> storage.replaceBook(foreign))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("No book with id: " + stored.getId());
+        assertThatThrownBy(() -> storage.replaceBook(missing))
+                .isInstanceOf(NotFoundException.class);
+        assertThat(storage.findBookById(stored.getId())).contains(stored);
+        assertThat(storage.findBookById(missing.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Замена отсутствующего пользователя. Должна завершиться ошибкой.")
+    void replaceMissingPerson_thenFailed() {
+        //given
+        Person person = person("reader");
+        person.setId(42);
+
+        //then
+        assertThatThrownBy(() -> storage.replacePerson(person))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("No user with id: 42");
+        assertThat(storage.findPersonById(42)).isEmpty();
+    }
+
+    private CompletableFuture<Void> moveRepeatedly(CountDownLatch start, Integer bookId, Person owner) {
+        return CompletableFuture.runAsync(() -> {
+            await(start);
+            for (int i = 0; i < 100; i++) {
+                Book book = book(owner);
+                book.setId(bookId);
+                storage.saveBook(book);
+            }
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Person person(String title) {
+        Person person = new Person();
+        person.setFullName("test name");
+        person.setTitle(title);
+        person.setAge(11);
+        return person;
+    }
+
+    private Book book(Person person) {
+        Book book = new Book();
+        book.setTitle("test title");
+        book.setAuthor("test author");
+        book.setPageCount(1000);
+        book.setPerson(person);
+        return book;
+    }
+}
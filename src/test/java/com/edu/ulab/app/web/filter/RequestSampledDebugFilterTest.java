@@ -0,0 +1,101 @@
+package com.edu.ulab.app.web.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import com.edu.ulab.app.config.UnitTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестирование функционала {@link RequestSampledDebugFilter}.
+ */
+@UnitTest
+@DisplayName("Testing sampled debug logging.")
+public class RequestSampledDebugFilterTest {
+    RequestSampledDebugFilter filter;
+    Logger appLogger;
+    Logger libraryLogger;
+
+    @BeforeEach
+    void setUp() {
+        LoggerContext context = new LoggerContext();
+        appLogger = context.getLogger("com.edu.ulab.app.facade.UserDataFacade");
+        appLogger.setLevel(Level.INFO);
+        libraryLogger = context.getLogger("org.hibernate.SQL");
+        libraryLogger.setLevel(Level.INFO);
+        filter = new RequestSampledDebugFilter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("Выборка 100%. DEBUG логи приложения пишутся, логи библиотек и TRACE - нет.")
+    void fullSample_thenOnlyApplicationDebugAccepted() {
+        //given
+        filter.setSamplePercent(100);
+        MDC.put(HttpRequestFilter.REQUEST_ID_MDC_KEY, "request-1");
+
+        //when
+        FilterReply appDebug = decide(appLogger, Level.DEBUG);
+        FilterReply appTrace = decide(appLogger, Level.TRACE);
+        FilterReply libraryDebug = decide(libraryLogger, Level.DEBUG);
+
+        //then
+        assertThat(appDebug).isEqualTo(FilterReply.ACCEPT);
+        assertThat(appTrace).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(libraryDebug).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    @Test
+    @DisplayName("Запрос без rqid или выборка выключена. Решение остаётся за уровнем логгера.")
+    void noRequestIdOrDisabled_thenNeutral() {
+        //given
+        filter.setSamplePercent(100);
+
+        //when
+        FilterReply withoutRequestId = decide(appLogger, Level.DEBUG);
+        filter.setSamplePercent(0);
+        MDC.put(HttpRequestFilter.REQUEST_ID_MDC_KEY, "request-1");
+        FilterReply disabled = decide(appLogger, Level.DEBUG);
+
+        //then
+        assertThat(withoutRequestId).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(disabled).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    @Test
+    @DisplayName("Выборка 10%. Решение одинаково для всех событий запроса, доля запросов около 10%.")
+    void partialSample_thenStablePerRequest() {
+        //given
+        filter.setSamplePercent(10);
+
+        //when
+        long sampled = IntStream.range(0, 10_000)
+                .filter(i -> {
+                    MDC.put(HttpRequestFilter.REQUEST_ID_MDC_KEY, "request-" + i);
+                    FilterReply first = decide(appLogger, Level.DEBUG);
+                    assertThat(decide(appLogger, Level.DEBUG)).isEqualTo(first);
+                    return first == FilterReply.ACCEPT;
+                })
+                .count();
+
+        //then
+        assertThat(sampled).isBetween(700L, 1300L);
+    }
+
+    private FilterReply decide(Logger logger, Level level) {
+        return filter.decide(null, logger, level, "message {}", null, null);
+    }
+}